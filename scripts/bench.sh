@@ -0,0 +1,29 @@
+#!/usr/bin/env bash
+# Generates a synthetic workload and replays it against Buddy in-process, printing
+# throughput, latency percentiles, heap use and save-file growth, then reports how
+# much splitting find and list across cores speeds them up on a list of a million tasks.
+# Options are passed to the workload generator, e.g.
+#   scripts/bench.sh --commands=50000 --target-size=5000 --mix=todo:50,find:50
+# The replay runs in a scratch folder so the real data/ folder is left alone.
+
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+CLASSES_DIR="$SCRIPT_DIR/../bin/classes"
+
+mkdir -p "$CLASSES_DIR"
+
+# compile the code, terminates if error occurred
+if ! javac -Xlint:none -d "$CLASSES_DIR" $(find "$SCRIPT_DIR/../src/main/java" -name '*.java')
+then
+    echo "********** BUILD FAILURE **********"
+    exit 1
+fi
+
+BENCH_DIR="$(mktemp -d)"
+java -cp "$CLASSES_DIR" buddy.bench.WorkloadGenerator --out="$BENCH_DIR/workload.txt" "$@" \
+    && (cd "$BENCH_DIR" && java -cp "$CLASSES_DIR" buddy.bench.ReplayHarness \
+            --workload=workload.txt --warmup=1000) \
+    && echo \
+    && java -cp "$CLASSES_DIR" buddy.bench.ParallelBenchmark --tasks=1000000
+STATUS=$?
+rm -rf "$BENCH_DIR"
+exit $STATUS
@@ -0,0 +1,14 @@
+#!/usr/bin/env bash
+# Launches ../bin/buddy.jar, using the AppCDS archive built by build-cds.sh when it exists.
+# All arguments are passed on to Buddy, e.g. ./buddy.sh --metrics-file=metrics.txt
+
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+BIN_DIR="$SCRIPT_DIR/../bin"
+JAR="$BIN_DIR/buddy.jar"
+ARCHIVE="$BIN_DIR/buddy.jsa"
+
+if [ -f "$ARCHIVE" ]
+then
+    exec java -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto -jar "$JAR" "$@"
+fi
+exec java -jar "$JAR" "$@"
@@ -0,0 +1,35 @@
+#!/usr/bin/env bash
+# Packages Buddy into ../bin/buddy.jar and builds an AppCDS archive (../bin/buddy.jsa) from
+# a short training session, so that later launches through buddy.sh skip most of the
+# JVM's class loading and verification work. Requires JDK 13 or newer.
+# (CDS only archives classes loaded from jar files, not from class directories.)
+
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+BIN_DIR="$SCRIPT_DIR/../bin"
+CLASSES_DIR="$BIN_DIR/classes"
+JAR="$BIN_DIR/buddy.jar"
+ARCHIVE="$BIN_DIR/buddy.jsa"
+
+rm -rf "$CLASSES_DIR" "$JAR" "$ARCHIVE"
+mkdir -p "$CLASSES_DIR"
+
+# compile and package the code, terminates if error occurred
+if ! javac -Xlint:none -d "$CLASSES_DIR" $(find "$SCRIPT_DIR/../src/main/java" -name '*.java') \
+        || ! jar --create --file "$JAR" --main-class buddy.Buddy -C "$CLASSES_DIR" .
+then
+    echo "********** BUILD FAILURE **********"
+    exit 1
+fi
+
+# run the training session in a scratch folder so the real data/ folder is left alone
+TRAINING_DIR="$(mktemp -d)"
+(cd "$TRAINING_DIR" && java -XX:ArchiveClassesAtExit="$ARCHIVE" -jar "$JAR" \
+        < "$SCRIPT_DIR/cds-training.txt" > /dev/null)
+rm -rf "$TRAINING_DIR"
+
+if [ ! -f "$ARCHIVE" ]
+then
+    echo "********** CDS ARCHIVE FAILURE **********"
+    exit 1
+fi
+echo "Created $ARCHIVE"
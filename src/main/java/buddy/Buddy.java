@@ -1,43 +1,350 @@
 package buddy;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+import buddy.history.Edit;
+import buddy.history.History;
+import buddy.jfr.CommandEvent;
+import buddy.jfr.FlightRecording;
+import buddy.metrics.Metrics;
+import buddy.metrics.Metrics.Phase;
+import buddy.parallel.RangeTasks;
+import buddy.query.Query;
+import buddy.query.QueryEngine;
+import buddy.query.SortKey;
+import buddy.reminder.ReminderService;
+import buddy.replication.Follower;
+import buddy.replication.ReplicationLog;
+import buddy.store.OffHeapTaskStore;
+import buddy.task.Deadline;
 import buddy.task.Task;
 import buddy.task.Todo;
+import buddy.transfer.TaskTransfer;
+import buddy.workspace.Workspace;
+import buddy.workspace.WorkspaceCache;
 
 /**
  * Represents the main chatbot Buddy, a loyal task tracker.
  * Handles user input and manages the task list.
  */
 public class Buddy {
-    private static final String FILE_PATH = "./data/buddy.txt";
     private static final String DIR_PATH = "./data/";
+    private static final String FILE_EXTENSION = ".txt";
+    private static final String DEFAULT_WORKSPACE = "buddy";
+    private static final long DEFAULT_WORKSPACE_CACHE_SIZE = 8;
+    private static final long DEFAULT_METRICS_INTERVAL_SECONDS = 10;
+    private static final String DEFAULT_RECORDING_FILE = "buddy.jfr";
+    private static final long DEFAULT_HISTORY_LIMIT = 100;
+    private static final long DEFAULT_FUZZY_DISTANCE = 2;
+    private static final long MAX_FUZZY_DISTANCE = 3;
+    private static final Set<String> COMMAND_WORDS = Set.of("list", "mark", "unmark", "todo", "deadline",
+            "event", "delete", "find", "query", "use", "export", "import", "undo", "redo", "stats");
+    private static final String UNKNOWN_COMMAND = "unknown";
 
     private Ui ui;
     private Storage storage;
     private TaskList tasks;
-    
+    private final CompletableFuture<TaskList> pendingLoad = new CompletableFuture<>();
+    private final Metrics metrics = new Metrics();
+    private Path metricsFile;
+    private FlightRecording recording;
+    private History history;
+    private int historyLimit;
+    private Path historyFile;
+    private ReminderService reminders;
+    private Workspace workspace;
+    private WorkspaceCache workspaces;
+    private int fuzzyDistance;
+    private QueryEngine queryEngine;
+    private ReplicationLog replication;
+    private Follower follower;
+    private boolean isIncrementalSave;
+    private boolean isOffHeap;
+
     /**
      * Initializes Buddy by setting up the UI, Storage, and loading existing tasks.
      * If loading fails, it starts with an empty task list.
+     * <p>
+     * The save file is read on a background thread so the greeting can be shown
+     * straight away; commands that need the list wait for the load to finish.
+     * </p>
      */
     public Buddy() {
+        this(LaunchOptions.parse(new String[0]));
+    }
+
+    /**
+     * Initializes Buddy with the given launch options.
+     * <p>
+     * When <code>--metrics-file=PATH</code> is given, the session statistics are written
+     * to that file every <code>--metrics-interval</code> seconds and once more on exit.
+     * With <code>--jfr[=PATH]</code>, a Flight Recorder recording runs for the whole
+     * session and is saved to <code>PATH</code> (default <code>buddy.jfr</code>) on exit.
+     * Up to <code>--history-limit</code> edits can be undone; with
+     * <code>--history-file=PATH</code> they are kept across restarts.
+     * Deadline reminders are shown between commands unless <code>--no-reminders</code> is given.
+     * At most <code>--workspace-cache</code> named task lists are kept in memory at once.
+     * </p>
+     * <p>
+     * With <code>--replicate-to=LOG</code>, every change to the list in use is shipped to
+     * <code>LOG</code>. With <code>--follow=LOG</code>, Buddy instead keeps a read-only copy
+     * of the list another Buddy is shipping to <code>LOG</code> and only serves reads.
+     * </p>
+     *
+     * @param options The options supplied on the command line.
+     */
+    public Buddy(LaunchOptions options) {
         ui = new Ui();
-        storage = new Storage(FILE_PATH, DIR_PATH);
+        if (options.has("jfr")) {
+            startRecording(options.get("jfr", "true"));
+        }
+        isIncrementalSave = options.has("incremental-save");
+        isOffHeap = options.has("off-heap");
+        storage = storageFor(DEFAULT_WORKSPACE);
+        workspaces = new WorkspaceCache((int) options.getLong("workspace-cache", DEFAULT_WORKSPACE_CACHE_SIZE),
+                this::detachListeners);
+        if (options.has("follow")) {
+            follower = new Follower(Paths.get(options.get("follow", "")), storage, metrics);
+            follower.start();
+            tasks = follower.getTasks();
+        } else {
+            if (!options.has("no-reminders") && !isOffHeap) {
+                reminders = new ReminderService();
+                reminders.start();
+            }
+            if (options.has("replicate-to")) {
+                replication = new ReplicationLog(Paths.get(options.get("replicate-to", "")), storage);
+            }
+            startLoading();
+        }
+        setUpHistory(options);
+        fuzzyDistance = (int) Math.min(MAX_FUZZY_DISTANCE,
+                Math.max(0, options.getLong("fuzzy-distance", DEFAULT_FUZZY_DISTANCE)));
+        queryEngine = new QueryEngine(fuzzyDistance);
+        RangeTasks.setThreshold((int) Math.min(Integer.MAX_VALUE,
+                options.getLong("parallel-threshold", RangeTasks.DEFAULT_THRESHOLD)));
+
+        if (options.has("metrics-file")) {
+            metricsFile = Paths.get(options.get("metrics-file", ""));
+            metrics.startPeriodicDump(metricsFile,
+                    Math.max(1, options.getLong("metrics-interval", DEFAULT_METRICS_INTERVAL_SECONDS)));
+        }
+    }
+
+    /**
+     * Creates the undo history of the default list, persisted to a file if one was requested.
+     *
+     * @param options The options supplied on the command line.
+     */
+    private void setUpHistory(LaunchOptions options) {
+        historyLimit = (int) Math.max(1, options.getLong("history-limit", DEFAULT_HISTORY_LIMIT));
+        if (options.has("history-file")) {
+            historyFile = Paths.get(options.get("history-file", ""));
+        }
+        history = historyFor(DEFAULT_WORKSPACE, storage);
+    }
+
+    /**
+     * Opens the undo history of a task list. The default list's history is read from and
+     * written to the history file, if one was requested, so it is reopened from there when
+     * the list is loaded again after being unloaded. If the file cannot be used, or for any
+     * other list, the history is kept in memory only.
+     *
+     * @param name The workspace name.
+     * @param listStorage The storage of the list, whose task format the history file uses.
+     * @return The history of the list.
+     */
+    private History historyFor(String name, Storage listStorage) {
+        if (historyFile == null || !name.equals(DEFAULT_WORKSPACE)) {
+            return new History(historyLimit);
+        }
         try {
-            this.tasks = new TaskList(storage.loadTasks());
+            return new History(historyLimit, historyFile, listStorage);
         } catch (BuddyException e) {
+            ui.printErrorMessage(e.getMessage() + " I'll only remember this session's changes.");
+            return new History(historyLimit);
+        }
+    }
+
+    /**
+     * Reads the save file on a daemon thread, completing {@link #pendingLoad} when done.
+     */
+    private void startLoading() {
+        Thread loader = new Thread(() -> {
+            long start = metrics.startTimer();
+            try {
+                TaskList loaded = loadList(storage);
+                attachListeners(loaded, storage);
+                pendingLoad.complete(loaded);
+            } catch (BuddyException e) {
+                pendingLoad.completeExceptionally(e);
+            }
+            metrics.setGauge("load_millis", (metrics.startTimer() - start) / 1_000_000);
+            metrics.recordThreadAllocation();
+        }, "buddy-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Waits for the background load to finish, if it has not already been picked up.
+     * If loading failed, Buddy starts with an empty task list.
+     */
+    private void awaitTasks() {
+        if (tasks != null) {
+            return;
+        }
+        try {
+            tasks = pendingLoad.join();
+            reportSkipped(storage);
+        } catch (CompletionException e) {
             ui.printErrorMessage("I couldn't load your old list, woof! Starting fresh.");
-            this.tasks = new TaskList();
+            tasks = new TaskList(isOffHeap ? new OffHeapTaskStore() : new ArrayList<>());
+            attachListeners(tasks, storage);
+        }
+        metrics.recordTasksLoaded(tasks.size());
+        workspace = new Workspace(DEFAULT_WORKSPACE, storage, tasks, history);
+        try {
+            workspaces.put(workspace);
+            if (replication != null) {
+                replication.follow(DEFAULT_WORKSPACE, tasks);
+            }
+        } catch (BuddyException e) {
+            ui.printErrorMessage(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the storage for the save file of a named task list.
+     *
+     * @param name The workspace name.
+     * @return A storage reading and writing <code>data/NAME.txt</code>.
+     */
+    private Storage storageFor(String name) {
+        return new Storage(DIR_PATH + name + FILE_EXTENSION, DIR_PATH, isIncrementalSave);
+    }
+
+    /**
+     * Tells the user how many tasks the last load of a list had to skip, if any. Called
+     * on the main thread once loading has finished, so the message never interleaves
+     * with other output.
+     *
+     * @param listStorage The storage the list was loaded from.
+     */
+    private void reportSkipped(Storage listStorage) {
+        int skipped = listStorage.getSkippedCount();
+        if (skipped > 0) {
+            ui.printCorruptedTasksSkipped(skipped);
+        }
+    }
+
+    /**
+     * Reads a task list from its save file, into native memory if Buddy was started
+     * with <code>--off-heap</code>.
+     *
+     * @param listStorage The storage of the list.
+     * @return The loaded list.
+     * @throws BuddyException If the save file cannot be read.
+     */
+    private TaskList loadList(Storage listStorage) throws BuddyException {
+        if (!isOffHeap) {
+            return new TaskList(listStorage.loadTasks());
+        }
+        OffHeapTaskStore store = new OffHeapTaskStore();
+        listStorage.loadTasks(store);
+        return new TaskList(store);
+    }
+
+    /**
+     * Makes the given workspace the one all commands work on.
+     *
+     * @param next The workspace to switch to.
+     */
+    private void switchTo(Workspace next) {
+        workspace = next;
+        storage = next.getStorage();
+        tasks = next.getTasks();
+        history = next.getHistory();
+    }
+
+    /**
+     * Disconnects a workspace that is being dropped from memory from the components following it.
+     *
+     * @param evicted The workspace being dropped.
+     */
+    private void detachListeners(Workspace evicted) {
+        if (evicted.getStorage().isIncremental()) {
+            evicted.getTasks().removeListener(evicted.getStorage());
+        }
+        if (reminders != null) {
+            evicted.getTasks().removeListener(reminders);
+            reminders.unscheduleAll(evicted.getTasks().getAllTasks());
+        }
+    }
+
+    /**
+     * Connects the components that follow changes to the task list, and tells them
+     * about the tasks it already holds.
+     *
+     * @param list The newly created task list.
+     * @param listStorage The storage the list is saved with.
+     */
+    private void attachListeners(TaskList list, Storage listStorage) {
+        if (listStorage.isIncremental()) {
+            list.addListener(listStorage);
+        }
+        if (reminders != null) {
+            list.addListener(reminders);
+            reminders.scheduleAll(list.getAllTasks());
+        }
+    }
+
+    /**
+     * Shows any deadlines that have fallen due since the last command.
+     */
+    private void deliverReminders() {
+        if (reminders == null) {
+            return;
+        }
+        ArrayList<Deadline> due = reminders.takeDueReminders();
+        if (!due.isEmpty()) {
+            ui.printReminders(due, reminders.today());
+        }
+    }
+
+    /**
+     * Starts a Flight Recorder recording, or reports why it could not be started.
+     *
+     * @param destination The file to write the recording to, or "true" for the default file.
+     */
+    private void startRecording(String destination) {
+        Path file = Paths.get(destination.equals("true") ? DEFAULT_RECORDING_FILE : destination);
+        try {
+            recording = FlightRecording.start(file);
+        } catch (IOException | IllegalStateException | SecurityException e) {
+            ui.printErrorMessage("I couldn't start the flight recording: " + e.getMessage());
         }
     }
 
     /**
      * The main entry point for the Buddy application.
      *
-     * @param args Command line arguments (not used).
+     * @param args Command line options, see {@link LaunchOptions}.
      */
     public static void main(String[] args) {
-        Buddy buddy = new Buddy();
+        Buddy buddy = new Buddy(LaunchOptions.parse(args));
         buddy.run();
     }
 
@@ -47,7 +354,9 @@ public class Buddy {
      */
     public void run() {
         ui.printGreeting();
+        recordTimeToFirstPrompt();
         while (true) {
+            deliverReminders();
             String line = ui.readCommand();
             if (Parser.getCommandWord(line).equals("bye")) {
                 break;
@@ -59,6 +368,68 @@ public class Buddy {
             }
         }
         ui.printExitMessage();
+        shutdown();
+    }
+
+    /**
+     * Runs a single command as if the user had typed it, for tools that drive Buddy in-process.
+     * The response is printed as usual.
+     *
+     * @param line The command line, which must not be "bye".
+     * @throws BuddyException If the command is unrecognized or fails.
+     */
+    public void execute(String line) throws BuddyException {
+        processCommand(line);
+    }
+
+    /**
+     * Saves any unsaved lists and stops background work, as when the user says "bye".
+     */
+    public void close() {
+        shutdown();
+    }
+
+    /**
+     * Records how long it took from JVM start until Buddy was ready for the first command.
+     */
+    private void recordTimeToFirstPrompt() {
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        metrics.setGauge("time_to_first_prompt_millis", System.currentTimeMillis() - jvmStart);
+    }
+
+    /**
+     * Stops background work and writes the final metrics snapshot and flight recording,
+     * if they were requested.
+     */
+    private void shutdown() {
+        metrics.stopPeriodicDump();
+        metrics.updateAllocatedBytes();
+        history.close();
+        try {
+            workspaces.closeAll();
+        } catch (BuddyException e) {
+            ui.printErrorMessage(e.getMessage());
+        }
+        if (reminders != null) {
+            reminders.stop();
+        }
+        if (replication != null) {
+            replication.close();
+        }
+        if (follower != null) {
+            follower.stop();
+        }
+        if (recording != null) {
+            recording.stop();
+        }
+        if (metricsFile == null) {
+            return;
+        }
+        try {
+            metrics.dumpTo(metricsFile);
+        } catch (IOException e) {
+            ui.printErrorMessage("I couldn't write the metrics file " + metricsFile + "...");
+        }
     }
 
     /**
@@ -68,11 +439,61 @@ public class Buddy {
      * @throws BuddyException If the command is unrecognized or parsing fails.
      */
     private void processCommand(String line) throws BuddyException {
+        long start = metrics.startTimer();
         String commandWord = Parser.getCommandWord(line);
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        try {
+            if (follower == null) {
+                dispatchCommand(commandWord, line, start);
+            } else {
+                checkReadOnly(commandWord, line);
+                synchronized (follower) {
+                    dispatchCommand(commandWord, line, start);
+                }
+            }
+            event.succeeded = true;
+        } finally {
+            event.command = commandWord;
+            event.commit();
+            // Unrecognised words are counted together, so typos cannot add new metric labels
+            metrics.recordCommand(COMMAND_WORDS.contains(commandWord) ? commandWord : UNKNOWN_COMMAND, start,
+                    event.succeeded);
+        }
+    }
 
+    /**
+     * Rejects commands that a follower cannot serve because they change a list or
+     * read lists other than the one being followed.
+     *
+     * @param commandWord The lowercase command word.
+     * @param line The raw input string from the user.
+     * @throws BuddyException If the command is not a read of the followed list.
+     */
+    private void checkReadOnly(String commandWord, String line) throws BuddyException {
+        boolean isRead = commandWord.equals("list") || commandWord.equals("query") || commandWord.equals("stats")
+                || (commandWord.equals("find") && !Parser.isFindAll(line));
+        if (!isRead) {
+            throw new BuddyException("I'm only following the '" + follower.getListName() + "' list from "
+                    + "another Buddy, so I can just 'list', 'find', 'query' or show 'stats'!");
+        }
+    }
+
+    /**
+     * Runs the handler for the given command word.
+     *
+     * @param commandWord The lowercase command word.
+     * @param line The raw input string from the user.
+     * @param start The timestamp at which the command was received.
+     * @throws BuddyException If the command is unrecognized or parsing fails.
+     */
+    private void dispatchCommand(String commandWord, String line, long start) throws BuddyException {
+        if (!commandWord.equals("stats")) {
+            awaitTasks();
+        }
         switch (commandWord) {
         case "list":
-            ui.printTaskList(tasks.getAllTasks());
+            handleList(line);
             break;
         case "mark":
             handleMarkTask(line);
@@ -95,10 +516,52 @@ public class Buddy {
         case "find":
             handleFind(line);
             break;
+        case "query":
+            handleQuery(line);
+            break;
+        case "use":
+            handleUse(line);
+            break;
+        case "export":
+            handleExport(line);
+            break;
+        case "import":
+            handleImport(line);
+            break;
+        case "undo":
+            handleUndo(true);
+            break;
+        case "redo":
+            handleUndo(false);
+            break;
+        case "stats":
+            if (reminders != null) {
+                metrics.setGauge("reminders_scheduled", reminders.scheduledCount());
+            }
+            metrics.updateAllocatedBytes();
+            ui.printStats(metrics.formatReport());
+            break;
         default:
             throw new BuddyException("Whimper... I don't recognize that command. " +
-                    "Try 'list', 'mark', 'unmark', 'todo', 'deadline', 'event', 'delete' or 'find'!");
+                    "Try 'list', 'mark', 'unmark', 'todo', 'deadline', 'event', 'delete', 'find', " +
+                    "'query', 'use', 'export', 'import', 'undo', 'redo' or 'stats'!");
+        }
+    }
+
+    /**
+     * Persists the task list and records how long the save took and how much it wrote.
+     *
+     * @param start The timestamp at which the save phase began.
+     * @return The timestamp at which the save finished.
+     * @throws BuddyException If the tasks cannot be written.
+     */
+    private long saveTasks(long start) throws BuddyException {
+        metrics.recordSave(storage.saveTasks(tasks.getAllTasks()));
+        workspace.markSaved();
+        if (replication != null) {
+            replication.flush();
         }
+        return metrics.recordPhase(Phase.SAVE, start);
     }
 
     /**
@@ -108,10 +571,15 @@ public class Buddy {
      * @throws BuddyException If the index is invalid or cannot be parsed.
      */
     private void handleMarkTask(String line) throws BuddyException {
+        long start = metrics.startTimer();
         int index = Parser.parseMarkIndex(line);
+        start = metrics.recordPhase(Phase.PARSE, start);
+        boolean wasDone = isDone(index);
         Task t = tasks.markTask(index);
-        storage.saveTasks(tasks.getAllTasks());
+        start = saveTasks(metrics.recordPhase(Phase.EXECUTE, start));
+        history.record(Edit.statusChanged(index, t, wasDone));
         ui.printStatusUpdate("Awesome! I've checked this off your list:", t);
+        metrics.recordPhase(Phase.RENDER, start);
     }
 
     /**
@@ -121,10 +589,15 @@ public class Buddy {
      * @throws BuddyException If the index is invalid or cannot be parsed.
      */
     private void handleUnmarkTask(String line) throws BuddyException {
+        long start = metrics.startTimer();
         int index = Parser.parseUnmarkIndex(line);
+        start = metrics.recordPhase(Phase.PARSE, start);
+        boolean wasDone = isDone(index);
         Task t = tasks.unmarkTask(index);
-        storage.saveTasks(tasks.getAllTasks());
+        start = saveTasks(metrics.recordPhase(Phase.EXECUTE, start));
+        history.record(Edit.statusChanged(index, t, wasDone));
         ui.printStatusUpdate("No problem, I've put this back on the list for you:", t);
+        metrics.recordPhase(Phase.RENDER, start);
     }
 
     /**
@@ -134,10 +607,14 @@ public class Buddy {
      * @throws BuddyException If the description is empty or invalid.
      */
     private void addToDo(String line) throws BuddyException {
+        long start = metrics.startTimer();
         Todo newTask = Parser.parseTodo(line);
+        start = metrics.recordPhase(Phase.PARSE, start);
         tasks.add(newTask);
-        storage.saveTasks(tasks.getAllTasks());
+        start = saveTasks(metrics.recordPhase(Phase.EXECUTE, start));
+        history.record(Edit.added(tasks.size() - 1, newTask));
         ui.printTaskAdded(newTask, tasks.size());
+        metrics.recordPhase(Phase.RENDER, start);
     }
 
     /**
@@ -147,10 +624,14 @@ public class Buddy {
      * @throws BuddyException If the input format or date is incorrect.
      */
     private void addDeadline(String line) throws BuddyException {
+        long start = metrics.startTimer();
         Task newTask = Parser.parseDeadline(line);
+        start = metrics.recordPhase(Phase.PARSE, start);
         tasks.add(newTask);
-        storage.saveTasks(tasks.getAllTasks());
+        start = saveTasks(metrics.recordPhase(Phase.EXECUTE, start));
+        history.record(Edit.added(tasks.size() - 1, newTask));
         ui.printTaskAdded(newTask, tasks.size());
+        metrics.recordPhase(Phase.RENDER, start);
     }
 
     /**
@@ -160,10 +641,14 @@ public class Buddy {
      * @throws BuddyException If the input format is missing required details.
      */
     private void addEvent(String line) throws BuddyException {
+        long start = metrics.startTimer();
         Task newTask = Parser.parseEvent(line);
+        start = metrics.recordPhase(Phase.PARSE, start);
         tasks.add(newTask);
-        storage.saveTasks(tasks.getAllTasks());
+        start = saveTasks(metrics.recordPhase(Phase.EXECUTE, start));
+        history.record(Edit.added(tasks.size() - 1, newTask));
         ui.printTaskAdded(newTask, tasks.size());
+        metrics.recordPhase(Phase.RENDER, start);
     }
 
     /**
@@ -173,10 +658,147 @@ public class Buddy {
      * @throws BuddyException If the index is invalid or cannot be parsed.
      */
     private void deleteTask(String line) throws BuddyException {
+        long start = metrics.startTimer();
         int index = Parser.parseDeleteIndex(line);
+        start = metrics.recordPhase(Phase.PARSE, start);
         Task removedTask = tasks.remove(index);
-        storage.saveTasks(tasks.getAllTasks());
+        start = saveTasks(metrics.recordPhase(Phase.EXECUTE, start));
+        history.record(Edit.removed(index, removedTask));
         ui.printTaskDeleted(removedTask, tasks.size());
+        metrics.recordPhase(Phase.RENDER, start);
+    }
+
+    /**
+     * Switches to the named task list, loading it from <code>data/NAME.txt</code> if it is
+     * not already in memory. The least recently used list may be saved and unloaded to make room.
+     *
+     * @param line The raw user input containing the list name.
+     * @throws BuddyException If the name is invalid, the list cannot be loaded,
+     *         or an unloaded list could not be saved.
+     */
+    private void handleUse(String line) throws BuddyException {
+        long start = metrics.startTimer();
+        String name = Parser.parseWorkspaceName(line);
+        start = metrics.recordPhase(Phase.PARSE, start);
+        Workspace next = workspaces.get(name);
+        try {
+            if (next == null) {
+                Storage nextStorage = storageFor(name);
+                TaskList nextTasks = loadList(nextStorage);
+                reportSkipped(nextStorage);
+                attachListeners(nextTasks, nextStorage);
+                next = new Workspace(name, nextStorage, nextTasks, historyFor(name, nextStorage));
+                workspaces.put(next);
+            }
+        } finally {
+            if (next != null) {
+                switchTo(next);
+            }
+        }
+        if (replication != null) {
+            replication.follow(name, tasks);
+        }
+        start = metrics.recordPhase(Phase.EXECUTE, start);
+        ui.printWorkspaceSwitched(name, tasks.size());
+        metrics.recordPhase(Phase.RENDER, start);
+    }
+
+    /**
+     * Searches every task list for a keyword. Lists in memory are searched directly;
+     * the others are read from disk one at a time and dropped straight after.
+     *
+     * @param keyword The search term.
+     * @param maxDistance The number of typos per word to allow, or -1 for an exact search.
+     * @return The matching tasks of each list that had any, keyed by list name.
+     * @throws BuddyException If a list cannot be read.
+     */
+    private LinkedHashMap<String, ArrayList<Task>> findInAllLists(String keyword, int maxDistance) throws BuddyException {
+        LinkedHashMap<String, ArrayList<Task>> matches = new LinkedHashMap<>();
+        String[] files = new File(DIR_PATH).list((dir, fileName) -> fileName.endsWith(FILE_EXTENSION));
+        TreeSet<String> names = new TreeSet<>();
+        for (String fileName : files == null ? new String[0] : files) {
+            names.add(fileName.substring(0, fileName.length() - FILE_EXTENSION.length()));
+        }
+        for (Workspace loaded : workspaces.getLoaded()) {
+            names.add(loaded.getName());
+        }
+        for (String name : names) {
+            Workspace loaded = workspaces.peek(name);
+            TaskList list = loaded != null ? loaded.getTasks() : loadList(storageFor(name));
+            ArrayList<Task> found = maxDistance < 0
+                    ? list.findTasks(keyword)
+                    : list.findTasksFuzzy(keyword, maxDistance);
+            if (!found.isEmpty()) {
+                matches.put(name, found);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Writes all tasks to a CSV or JSON Lines file.
+     *
+     * @param line The raw user input containing the file name.
+     * @throws BuddyException If the file name is missing, has an unknown extension or cannot be written.
+     */
+    private void handleExport(String line) throws BuddyException {
+        long start = metrics.startTimer();
+        String file = Parser.parseExportFile(line);
+        start = metrics.recordPhase(Phase.PARSE, start);
+        int count = TaskTransfer.exportTasks(tasks.getAllTasks(), Paths.get(file));
+        start = metrics.recordPhase(Phase.EXECUTE, start);
+        ui.printExported(count, file);
+        metrics.recordPhase(Phase.RENDER, start);
+    }
+
+    /**
+     * Appends the tasks in a CSV or JSON Lines file to the list and saves once at the end.
+     * <p>
+     * Imports are not recorded in the undo history; earlier changes can still be undone
+     * because imported tasks are always added after them.
+     * </p>
+     *
+     * @param line The raw user input containing the file name.
+     * @throws BuddyException If the file name is missing, has an unknown extension or cannot be read.
+     */
+    private void handleImport(String line) throws BuddyException {
+        long start = metrics.startTimer();
+        String file = Parser.parseImportFile(line);
+        start = metrics.recordPhase(Phase.PARSE, start);
+        TaskTransfer.ImportSummary summary = TaskTransfer.importTasks(Paths.get(file), tasks);
+        start = saveTasks(metrics.recordPhase(Phase.EXECUTE, start));
+        ui.printImported(summary.getImported(), summary.getSkipped(), tasks.size());
+        metrics.recordPhase(Phase.RENDER, start);
+    }
+
+    /**
+     * Reverts the most recent change, or makes the most recently reverted change again.
+     *
+     * @param isUndo {@code true} to undo, {@code false} to redo.
+     * @throws BuddyException If there is nothing to undo or redo.
+     */
+    private void handleUndo(boolean isUndo) throws BuddyException {
+        long start = metrics.startTimer();
+        Edit edit = isUndo ? history.undo(tasks) : history.redo(tasks);
+        start = saveTasks(metrics.recordPhase(Phase.EXECUTE, start));
+        if (isUndo) {
+            history.recordUndo();
+        } else {
+            history.recordRedo();
+        }
+        ui.printStatusUpdate(edit.describe(isUndo), edit.getAffectedTask(tasks));
+        metrics.recordPhase(Phase.RENDER, start);
+    }
+
+    /**
+     * Returns whether the task at the given position is done, so the change can be undone later.
+     * An invalid index returns {@code false}; the command itself reports the error.
+     *
+     * @param index The zero-based index of the task.
+     * @return The current completion status.
+     */
+    private boolean isDone(int index) {
+        return index >= 0 && index < tasks.size() && tasks.get(index).isDone();
     }
 
     /**
@@ -186,8 +808,69 @@ public class Buddy {
      * @throws BuddyException If the keyword is missing or invalid.
      */
     private void handleFind(String line) throws BuddyException {
+        long start = metrics.startTimer();
         String keyword = Parser.parseFindKeyword(line);
+        int maxDistance = Parser.parseFuzzyDistance(line, fuzzyDistance);
+        start = metrics.recordPhase(Phase.PARSE, start);
+        if (Parser.isFindAll(line)) {
+            LinkedHashMap<String, ArrayList<Task>> matches = findInAllLists(keyword, maxDistance);
+            start = metrics.recordPhase(Phase.EXECUTE, start);
+            ui.printMatchingTasksInAllLists(matches, keyword);
+            metrics.recordPhase(Phase.RENDER, start);
+            return;
+        }
+        if (maxDistance >= 0) {
+            ArrayList<Task> matchingTasks = tasks.findTasksFuzzy(keyword, maxDistance);
+            start = metrics.recordPhase(Phase.EXECUTE, start);
+            ui.printFuzzyMatches(matchingTasks, keyword, maxDistance);
+            metrics.recordPhase(Phase.RENDER, start);
+            return;
+        }
         ArrayList<Task> matchingTasks = tasks.findTasks(keyword);
+        start = metrics.recordPhase(Phase.EXECUTE, start);
         ui.printMatchingTasks(matchingTasks, keyword);
+        metrics.recordPhase(Phase.RENDER, start);
+    }
+
+    /**
+     * Displays every task, in list order or in the sorted order asked for.
+     *
+     * @param line The raw user input, possibly containing <code>--sort=KEY</code>.
+     * @throws BuddyException If the sort key is not recognised.
+     */
+    private void handleList(String line) throws BuddyException {
+        long start = metrics.startTimer();
+        SortKey sortKey = Parser.parseListSort(line);
+        start = metrics.recordPhase(Phase.PARSE, start);
+        if (sortKey == null) {
+            ui.printTaskList(tasks.getAllTasks());
+        } else if (tasks.isOffHeap()) {
+            // Off-heap lists keep no sorted views, so sort the positions of a copy made for printing
+            ArrayList<Task> snapshot = new ArrayList<>(tasks.getAllTasks());
+            PrimitiveIterator.OfInt sorted = IntStream.range(0, snapshot.size()).boxed()
+                    .sorted(Comparator.comparing(snapshot::get, sortKey.comparator()))
+                    .mapToInt(Integer::intValue).iterator();
+            ui.printSortedTaskList(sorted, snapshot, sortKey);
+        } else {
+            ui.printSortedTaskList(tasks.getSortedView(sortKey).positions(), tasks.getAllTasks(), sortKey);
+        }
+        metrics.recordPhase(Phase.RENDER, start);
+    }
+
+    /**
+     * Compiles a query and displays the tasks it selects.
+     *
+     * @param line The raw user input containing the query clauses.
+     * @throws BuddyException If the query is missing or not understood.
+     */
+    private void handleQuery(String line) throws BuddyException {
+        long start = metrics.startTimer();
+        String text = Parser.parseQuery(line);
+        Query query = Query.compile(text);
+        start = metrics.recordPhase(Phase.PARSE, start);
+        ArrayList<Task> results = queryEngine.run(query, tasks);
+        start = metrics.recordPhase(Phase.EXECUTE, start);
+        ui.printQueryResults(results, text);
+        metrics.recordPhase(Phase.RENDER, start);
     }
 }
@@ -0,0 +1,68 @@
+package buddy;
+
+import java.util.HashMap;
+
+/**
+ * Holds the optional settings passed to Buddy on the command line.
+ * <p>
+ * Options take the form <code>--name=value</code>, or just <code>--name</code>
+ * for on/off switches. Anything that does not start with <code>--</code> is ignored.
+ * </p>
+ */
+public class LaunchOptions {
+    private final HashMap<String, String> values = new HashMap<>();
+
+    /**
+     * Parses the raw command line arguments into a <code>LaunchOptions</code> object.
+     *
+     * @param args The arguments given to {@link Buddy#main(String[])}.
+     * @return The parsed options.
+     */
+    public static LaunchOptions parse(String[] args) {
+        LaunchOptions options = new LaunchOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                continue;
+            }
+            String[] parts = arg.substring(2).split("=", 2);
+            options.values.put(parts[0], parts.length > 1 ? parts[1] : "true");
+        }
+        return options;
+    }
+
+    /**
+     * Returns whether the given option was supplied.
+     *
+     * @param name The option name without the leading dashes.
+     * @return {@code true} if the option is present.
+     */
+    public boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    /**
+     * Returns the value of an option, or a fallback if it was not supplied.
+     *
+     * @param name The option name without the leading dashes.
+     * @param defaultValue The value to use when the option is missing.
+     * @return The option value.
+     */
+    public String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * Returns the numeric value of an option, or a fallback if it is missing or not a number.
+     *
+     * @param name The option name without the leading dashes.
+     * @param defaultValue The value to use when the option is missing or invalid.
+     * @return The option value as a <code>long</code>.
+     */
+    public long getLong(String name, long defaultValue) {
+        try {
+            return Long.parseLong(values.get(name));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
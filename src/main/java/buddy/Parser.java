@@ -1,11 +1,13 @@
 package buddy;
 
+import buddy.query.SortKey;
 import buddy.task.Deadline;
 import buddy.task.Event;
 import buddy.task.Todo;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 
 /**
  * Deals with making sense of the user command.
@@ -24,6 +26,17 @@ public class Parser {
     private static final int UNMARK_OFFSET = 7;
     private static final int DELETE_OFFSET = 7;
     private static final int FIND_OFFSET = 5;
+    private static final int EXPORT_OFFSET = 7;
+    private static final int IMPORT_OFFSET = 7;
+    private static final int USE_OFFSET = 4;
+    private static final int QUERY_OFFSET = 6;
+    private static final int LIST_OFFSET = 4;
+    private static final String LIST_SORT_FLAG = "--sort=";
+    private static final String FIND_ALL_FLAG = "--all";
+    private static final String FIND_FUZZY_FLAG = "--fuzzy";
+    private static final int MAX_FUZZY_DISTANCE = 3;
+    private static final String FIND_FORMAT = "find [--all] [--fuzzy[=N]] [keyword]";
+    private static final String WORKSPACE_NAME_PATTERN = "[A-Za-z0-9_-]{1,64}";
 
     /**
      * Extracts the primary command word from the user input.
@@ -117,6 +130,21 @@ public class Parser {
         }
     }
 
+    /**
+     * Reads the order asked for by a 'list --sort=KEY' command.
+     *
+     * @param input The full user input string.
+     * @return The sort key, or {@code null} to list the tasks in the order they were added.
+     * @throws BuddyException If the key is not one Buddy can sort by.
+     */
+    public static SortKey parseListSort(String input) throws BuddyException {
+        String rest = input.trim().substring(LIST_OFFSET).trim();
+        if (!rest.startsWith(LIST_SORT_FLAG)) {
+            return null;
+        }
+        return SortKey.parse(rest.substring(LIST_SORT_FLAG.length()).trim());
+    }
+
     /**
      * Parses the index for the 'mark' command.
      *
@@ -151,7 +179,52 @@ public class Parser {
     }
 
     /**
-     * Extracts the search keyword from the 'find' command.
+     * Checks whether a 'find' command should search every workspace instead of only the current one.
+     *
+     * @param input The full user input string.
+     * @return {@code true} if the keyword is preceded by <code>--all</code>.
+     */
+    public static boolean isFindAll(String input) {
+        for (String flag : getFindFlags(input)) {
+            if (flag.equals(FIND_ALL_FLAG)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the maximum number of typos per word allowed by a 'find --fuzzy' command.
+     *
+     * @param input The full user input string.
+     * @param defaultDistance The distance to use when <code>--fuzzy</code> is given without a number.
+     * @return The maximum distance, or -1 if the command does not ask for a fuzzy search.
+     * @throws BuddyException If the number is not between 0 and 3.
+     */
+    public static int parseFuzzyDistance(String input, int defaultDistance) throws BuddyException {
+        for (String flag : getFindFlags(input)) {
+            if (flag.equals(FIND_FUZZY_FLAG)) {
+                return defaultDistance;
+            }
+            if (flag.startsWith(FIND_FUZZY_FLAG + "=")) {
+                try {
+                    int distance = Integer.parseInt(flag.substring(FIND_FUZZY_FLAG.length() + 1));
+                    if (distance >= 0 && distance <= MAX_FUZZY_DISTANCE) {
+                        return distance;
+                    }
+                } catch (NumberFormatException e) {
+                    // Reported below together with out-of-range numbers
+                }
+                throw new BuddyException("I can only forgive 0 to " + MAX_FUZZY_DISTANCE
+                        + " typos per word! Format: " + FIND_FORMAT);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Extracts the search keyword from the 'find' command, without any <code>--all</code>
+     * or <code>--fuzzy</code> flags.
      *
      * @param input The full user input string.
      * @return The trimmed keyword for searching.
@@ -160,8 +233,100 @@ public class Parser {
     public static String parseFindKeyword(String input) throws BuddyException {
         String trimmed = input.trim();
         if (trimmed.length() <= FIND_OFFSET) {
-            throw new BuddyException("What am I looking for?? Format: find [keyword]");
+            throw new BuddyException("What am I looking for?? Format: " + FIND_FORMAT);
+        }
+        String keyword = trimmed.substring(FIND_OFFSET).trim();
+        for (String flag : getFindFlags(input)) {
+            keyword = keyword.substring(flag.length()).trim();
+        }
+        if (keyword.isEmpty()) {
+            throw new BuddyException("What am I looking for?? Format: " + FIND_FORMAT);
+        }
+        return keyword;
+    }
+
+    /**
+     * Returns the flags given before the keyword of a 'find' command, in order.
+     * Anything from the first word that is not a flag onwards is part of the keyword.
+     */
+    private static ArrayList<String> getFindFlags(String input) {
+        ArrayList<String> flags = new ArrayList<>();
+        String trimmed = input.trim();
+        if (trimmed.length() <= FIND_OFFSET) {
+            return flags;
+        }
+        for (String word : trimmed.substring(FIND_OFFSET).trim().split("\\s+")) {
+            if (!word.equals(FIND_ALL_FLAG) && !word.equals(FIND_FUZZY_FLAG)
+                    && !word.startsWith(FIND_FUZZY_FLAG + "=")) {
+                break;
+            }
+            flags.add(word);
+        }
+        return flags;
+    }
+
+    /**
+     * Extracts the clauses from the 'query' command.
+     *
+     * @param input The full user input string.
+     * @return The trimmed clauses, to be compiled with {@link buddy.query.Query#compile(String)}.
+     * @throws BuddyException If there are no clauses.
+     */
+    public static String parseQuery(String input) throws BuddyException {
+        String trimmed = input.trim();
+        if (trimmed.length() <= QUERY_OFFSET) {
+            throw new BuddyException("What should I dig up?? Format: query [field=value ...]");
+        }
+        return trimmed.substring(QUERY_OFFSET).trim();
+    }
+
+    /**
+     * Extracts the file name from the 'export' command.
+     *
+     * @param input The full user input string.
+     * @return The trimmed file name to export to.
+     * @throws BuddyException If the file name is missing.
+     */
+    public static String parseExportFile(String input) throws BuddyException {
+        String trimmed = input.trim();
+        if (trimmed.length() <= EXPORT_OFFSET) {
+            throw new BuddyException("Where should I put your tasks?? Format: export [file.csv|file.jsonl]");
+        }
+        return trimmed.substring(EXPORT_OFFSET).trim();
+    }
+
+    /**
+     * Extracts the file name from the 'import' command.
+     *
+     * @param input The full user input string.
+     * @return The trimmed file name to import from.
+     * @throws BuddyException If the file name is missing.
+     */
+    public static String parseImportFile(String input) throws BuddyException {
+        String trimmed = input.trim();
+        if (trimmed.length() <= IMPORT_OFFSET) {
+            throw new BuddyException("Where should I fetch your tasks from?? Format: import [file.csv|file.jsonl]");
+        }
+        return trimmed.substring(IMPORT_OFFSET).trim();
+    }
+
+    /**
+     * Extracts the workspace name from the 'use' command.
+     *
+     * @param input The full user input string.
+     * @return The workspace name.
+     * @throws BuddyException If the name is missing or contains characters other than
+     *         letters, digits, '-' and '_'.
+     */
+    public static String parseWorkspaceName(String input) throws BuddyException {
+        String trimmed = input.trim();
+        if (trimmed.length() <= USE_OFFSET) {
+            throw new BuddyException("Which list should I fetch?? Format: use [name]");
+        }
+        String name = trimmed.substring(USE_OFFSET).trim();
+        if (!name.matches(WORKSPACE_NAME_PATTERN)) {
+            throw new BuddyException("List names can only have letters, digits, '-' and '_'! Format: use [name]");
         }
-        return trimmed.substring(FIND_OFFSET).trim();
+        return name;
     }
 }
@@ -2,12 +2,22 @@ package buddy;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Scanner;
 import java.util.ArrayList;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
+import buddy.jfr.StorageEvent;
 import buddy.task.Deadline;
 import buddy.task.Event;
 import buddy.task.Task;
@@ -18,12 +28,29 @@ import buddy.task.Todo;
  * <p>
  * This class ensures that the necessary directory and file exist, parses
  * saved data into <code>Task</code> objects, and formats <code>Task</code>
- * objects into strings for storage.
+ * objects into strings for storage. The file is always UTF-8.
+ * </p>
+ * <p>
+ * In incremental mode the storage listens to its task list and remembers where each
+ * record starts in the file. A save then only writes what changed: marking or
+ * unmarking a task overwrites its one-byte status in place, and adding or deleting
+ * a task rewrites the file from that task's record onwards, which for a new task at
+ * the end is just an append. The first save after loading writes the whole file.
  * </p>
  */
-public class Storage {
+public class Storage implements TaskListener {
+    private static final int STATUS_OFFSET = "T | ".length();
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
     private final String filePath;
     private final String dirPath;
+    private final boolean isIncremental;
+    private long[] offsets = new long[0];
+    private int recordCount = -1;
+    private int rewriteFrom = Integer.MAX_VALUE;
+    private final LinkedHashSet<Integer> statusChanged = new LinkedHashSet<>();
+    private int skippedCount;
 
     /**
      * Initializes a new <code>Storage</code> object with specified paths.
@@ -32,8 +59,30 @@ public class Storage {
      * @param dirPath The directory containing the save file.
      */
     public Storage(String filePath, String dirPath) {
+        this(filePath, dirPath, false);
+    }
+
+    /**
+     * Initializes a new <code>Storage</code> object that may save incrementally.
+     * An incremental storage must be registered as a listener of the list it saves.
+     *
+     * @param filePath The full path to the save file.
+     * @param dirPath The directory containing the save file.
+     * @param isIncremental Whether saves should only write the records that changed.
+     */
+    public Storage(String filePath, String dirPath, boolean isIncremental) {
         this.filePath = filePath;
         this.dirPath = dirPath;
+        this.isIncremental = isIncremental;
+    }
+
+    /**
+     * Returns whether saves only write the records that changed.
+     *
+     * @return {@code true} in incremental mode.
+     */
+    public boolean isIncremental() {
+        return isIncremental;
     }
 
     /**
@@ -58,7 +107,7 @@ public class Storage {
      * Reads task data from the save file and converts it into an {@link ArrayList}.
      * <p>
      * If the date in a deadline is corrupted, the method skips that specific
-     * task and continues loading.
+     * task and continues loading. The number skipped is kept for {@link #getSkippedCount()}.
      * </p>
      *
      * @return An {@link ArrayList} containing the loaded tasks.
@@ -66,71 +115,230 @@ public class Storage {
      */
     public ArrayList<Task> loadTasks() throws BuddyException {
         ArrayList<Task> tasks = new ArrayList<>();
+        loadTasks(tasks);
+        return tasks;
+    }
+
+    /**
+     * Returns how many tasks the most recent load skipped because their deadline date
+     * was corrupted. Loading may run on another thread, so the count is left for the
+     * caller to report once the load has finished.
+     *
+     * @return The number of tasks skipped.
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * Reads task data from the save file into the given list, so a list that keeps
+     * its tasks elsewhere can be filled without building an {@link ArrayList} first.
+     *
+     * @param tasks The list to append the loaded tasks to.
+     * @throws BuddyException If an error occurs during the reading process.
+     */
+    public void loadTasks(List<Task> tasks) throws BuddyException {
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        skippedCount = 0;
         try {
             loadDataFile();
             File f = new File(filePath);
-            Scanner s = new Scanner(f);
+            event.bytes = f.length();
+            Scanner s = new Scanner(f, StandardCharsets.UTF_8);
 
             while (s.hasNext()) {
-                String line = s.nextLine();
-                String[] parts = line.split(" \\| ");
-                if (parts.length < 3) {
-                    continue;
-                }
-
-                String type = parts[0];
-                boolean isDone = parts[1].equals("1");
-                String desc = parts[2];
-
-                Task task = null;
-                switch (type) {
-                case "T":
-                    task = new Todo(desc);
-                    break;
-                case "D":
-                    try {
-                        // parts[3] is where the date string 'yyyy-mm-dd' should be
-                        LocalDate date = LocalDate.parse(parts[3].trim());
-                        task = new Deadline(desc, date);
-                    } catch (DateTimeParseException e) {
-                        // If the date in the file is corrupted, skip it or handle the error
-                        System.out.println("Skipping a corrupted deadline date in your save file...");
-                        continue;
-                    }
-                    break;
-                case "E":
-                    task = new Event(desc, parts[3], parts[4]);
-                    break;
-                }
-
-                if (task != null) {
-                    if (isDone) {
-                        task.markAsDone();
+                try {
+                    Task task = parseTask(s.nextLine());
+                    if (task != null) {
+                        tasks.add(task);
                     }
-                    tasks.add(task);
+                } catch (DateTimeParseException e) {
+                    // If the date in the file is corrupted, skip the task; the caller reports the count
+                    skippedCount++;
                 }
             }
         } catch (IOException e) {
             throw new BuddyException("File reading failed!");
+        } finally {
+            commitStorageEvent(event, "load", tasks.size());
         }
-        return tasks;
+    }
+
+    /**
+     * Converts a single line in the save file format back into a <code>Task</code>.
+     *
+     * @param line A line produced by {@link #formatTaskForFile(Task)}.
+     * @return The parsed task, or <code>null</code> if the line is not a task record.
+     * @throws DateTimeParseException If the date of a deadline is corrupted.
+     */
+    public Task parseTask(String line) {
+        String[] parts = line.split(" \\| ");
+        if (parts.length < 3) {
+            return null;
+        }
+
+        String type = parts[0];
+        boolean isDone = parts[1].equals("1");
+        String desc = parts[2];
+
+        Task task = null;
+        switch (type) {
+        case "T":
+            task = new Todo(desc);
+            break;
+        case "D":
+            // parts[3] is where the date string 'yyyy-mm-dd' should be
+            task = new Deadline(desc, LocalDate.parse(parts[3].trim()));
+            break;
+        case "E":
+            task = new Event(desc, parts[3], parts[4]);
+            break;
+        }
+
+        if (task != null && isDone) {
+            task.markAsDone();
+        }
+        return task;
     }
 
     /**
      * Writes the current list of tasks to the save file.
      *
-     * @param tasks The {@link ArrayList} of tasks to be persisted.
+     * @param tasks The tasks to be persisted.
+     * @return The number of bytes written to the save file.
      * @throws BuddyException If an error occurs while writing to the file.
      */
-    public void saveTasks(ArrayList<Task> tasks) throws BuddyException {
+    public long saveTasks(List<Task> tasks) throws BuddyException {
+        StorageEvent event = new StorageEvent();
+        event.begin();
         try {
-            FileWriter fw = new FileWriter(filePath);
+            if (isIncremental) {
+                event.bytes = saveChanges(tasks);
+                return event.bytes;
+            }
+            FileWriter fw = new FileWriter(filePath, StandardCharsets.UTF_8);
             for (Task t : tasks) {
                 fw.write(formatTaskForFile(t) + System.lineSeparator());
             }
             fw.close();
+            event.bytes = new File(filePath).length();
+            return event.bytes;
         } catch (IOException e) {
             throw new BuddyException("Whimper... I couldn't save your tasks!");
+        } finally {
+            commitStorageEvent(event, "save", tasks.size());
+        }
+    }
+
+    /**
+     * Writes only the records that changed since the last save.
+     * <p>
+     * If nothing has been saved yet, or the file no longer has the length this storage
+     * left it at, the whole file is rewritten instead.
+     * </p>
+     *
+     * @param tasks The tasks to be persisted, which must be the list this storage listens to.
+     * @return The number of bytes written.
+     */
+    private long saveChanges(List<Task> tasks) throws IOException {
+        loadDataFile();
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.WRITE)) {
+            if (recordCount < 0 || channel.size() != offsets[recordCount]) {
+                rewriteFrom = 0;
+                recordCount = 0;
+                offsets = new long[] {0};
+            }
+            long written = 0;
+            ByteBuffer status = ByteBuffer.allocate(1);
+            for (int index : statusChanged) {
+                if (index >= rewriteFrom) {
+                    continue;
+                }
+                status.clear();
+                status.put((byte) (tasks.get(index).isDone() ? '1' : '0'));
+                status.flip();
+                written += channel.write(status, offsets[index] + STATUS_OFFSET);
+            }
+            statusChanged.clear();
+            int from = Math.min(rewriteFrom, tasks.size());
+            if (from < tasks.size() || recordCount != tasks.size()) {
+                written += rewriteTail(channel, tasks, from);
+            }
+            rewriteFrom = Integer.MAX_VALUE;
+            return written;
+        } catch (IOException e) {
+            // The file may be half written, so the next save starts over
+            recordCount = -1;
+            throw e;
+        }
+    }
+
+    /**
+     * Rewrites the records from <code>from</code> to the end of the list, starting where
+     * record <code>from</code> begins, and cuts off anything left after them.
+     */
+    private long rewriteTail(FileChannel channel, List<Task> tasks, int from) throws IOException {
+        if (offsets.length < tasks.size() + 1) {
+            offsets = Arrays.copyOf(offsets, Math.max(tasks.size() + 1, offsets.length * 2));
+        }
+        long position = offsets[from];
+        ByteArrayOutputStream pending = new ByteArrayOutputStream(WRITE_BUFFER_BYTES);
+        for (int i = from; i < tasks.size(); i++) {
+            offsets[i] = position + pending.size();
+            pending.write(formatTaskForFile(tasks.get(i)).getBytes(StandardCharsets.UTF_8));
+            pending.write(LINE_SEPARATOR);
+            if (pending.size() >= WRITE_BUFFER_BYTES) {
+                position += writeFully(channel, pending, position);
+            }
+        }
+        position += writeFully(channel, pending, position);
+        offsets[tasks.size()] = position;
+        channel.truncate(position);
+        recordCount = tasks.size();
+        return position - offsets[from];
+    }
+
+    private static long writeFully(FileChannel channel, ByteArrayOutputStream pending, long position)
+            throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(pending.toByteArray());
+        while (bytes.hasRemaining()) {
+            position += channel.write(bytes, position);
+        }
+        int size = pending.size();
+        pending.reset();
+        return size;
+    }
+
+    @Override
+    public void taskAdded(int index, Task task) {
+        rewriteFrom = Math.min(rewriteFrom, index);
+    }
+
+    @Override
+    public void taskRemoved(int index, Task task) {
+        rewriteFrom = Math.min(rewriteFrom, index);
+    }
+
+    @Override
+    public void taskStatusChanged(int index, Task task) {
+        statusChanged.add(index);
+    }
+
+    /**
+     * Completes a Flight Recorder event describing a load or save of this file.
+     *
+     * @param event The event started at the beginning of the operation.
+     * @param operation Either "load" or "save".
+     * @param taskCount The number of tasks read or written.
+     */
+    private void commitStorageEvent(StorageEvent event, String operation, int taskCount) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.path = filePath;
+            event.taskCount = taskCount;
+            event.commit();
         }
     }
 
@@ -1,6 +1,14 @@
 package buddy;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import buddy.index.FuzzyIndex;
+import buddy.index.SortedView;
+import buddy.parallel.RangeTasks;
+import buddy.query.SortKey;
+import buddy.store.OffHeapTaskStore;
 import buddy.task.Task;
 
 /**
@@ -9,17 +17,26 @@ import buddy.task.Task;
  * This class provides methods to manipulate the list of tasks, including adding,
  * deleting, marking as done, and searching for tasks by keyword.
  * </p>
+ * <p>
+ * The tasks are normally kept in an {@link ArrayList}, but a very long list can be kept
+ * in an {@link OffHeapTaskStore} instead, whose tasks are copies made on every read.
+ * Such a list keeps no fuzzy index or sorted views, which would hold every task on the
+ * heap; fuzzy searches scan it instead.
+ * </p>
  */
 public class TaskList {
-    private final ArrayList<Task> tasks;
+    private final List<Task> tasks;
+    private final ArrayList<TaskListener> listeners = new ArrayList<>();
+    private FuzzyIndex fuzzyIndex;
+    private final EnumMap<SortKey, SortedView> sortedViews = new EnumMap<>(SortKey.class);
 
     /**
      * Constructs a <code>TaskList</code> using an existing collection of tasks.
      * Primarily used when loading data from the {@link Storage} component.
      *
-     * @param tasks An {@link ArrayList} of tasks to initialize the list with.
+     * @param tasks The tasks to initialize the list with, which the list keeps using.
      */
-    public TaskList(ArrayList<Task> tasks) {
+    public TaskList(List<Task> tasks) {
         this.tasks = tasks;
     }
 
@@ -31,6 +48,24 @@ public class TaskList {
         this.tasks = new ArrayList<>();
     }
 
+    /**
+     * Registers a listener to be told about every later change to the list.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(TaskListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops telling a listener about changes to the list.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(TaskListener listener) {
+        listeners.remove(listener);
+    }
+
     /**
      * Appends a new task to the list.
      *
@@ -38,6 +73,52 @@ public class TaskList {
      */
     public void add(Task task) {
         tasks.add(task);
+        notifyAdded(tasks.size() - 1, task);
+    }
+
+    /**
+     * Appends a batch of tasks to the end of the list in one step.
+     *
+     * @param newTasks The tasks to add, in order.
+     */
+    public void addAll(Collection<Task> newTasks) {
+        int index = tasks.size();
+        tasks.addAll(newTasks);
+        if (listeners.isEmpty()) {
+            return;
+        }
+        for (Task task : newTasks) {
+            notifyAdded(index++, task);
+        }
+    }
+
+    /**
+     * Drops every task after the first <code>newSize</code> tasks.
+     * Used to roll back a batch of additions that could not be completed.
+     *
+     * @param newSize The number of tasks to keep.
+     */
+    public void truncate(int newSize) {
+        while (tasks.size() > newSize) {
+            int index = tasks.size() - 1;
+            notifyRemoved(index, tasks.remove(index));
+        }
+    }
+
+    /**
+     * Inserts a task at a specific position, shifting later tasks down by one.
+     * Used to put a deleted task back where it was.
+     *
+     * @param index The zero-based position to insert at, from 0 up to the current size.
+     * @param task The {@link Task} object to be inserted.
+     * @throws BuddyException If the index is out of bounds.
+     */
+    public void insert(int index, Task task) throws BuddyException {
+        if (index < 0 || index > tasks.size()) {
+            throw new BuddyException("I can't put that back... position " + (index + 1) + " doesn't exist!");
+        }
+        tasks.add(index, task);
+        notifyAdded(index, task);
     }
 
     /**
@@ -63,12 +144,21 @@ public class TaskList {
      * Provides access to the underlying list of tasks.
      * Primarily used by the {@link Storage} class for data persistence.
      *
-     * @return The raw {@link ArrayList} of tasks.
+     * @return The raw list of tasks.
      */
-    public ArrayList<Task> getAllTasks() {
+    public List<Task> getAllTasks() {
         return tasks;
     }
 
+    /**
+     * Returns whether the tasks are kept off the Java heap.
+     *
+     * @return {@code true} if the list is backed by an {@link OffHeapTaskStore}.
+     */
+    public boolean isOffHeap() {
+        return tasks instanceof OffHeapTaskStore;
+    }
+
     /**
      * Validates if a given index is within the bounds of the task list.
      *
@@ -91,8 +181,11 @@ public class TaskList {
      */
     public Task markTask(int index) throws BuddyException {
         validateIndex(index, "mark");
-        tasks.get(index).markAsDone();
-        return tasks.get(index);
+        Task task = tasks.get(index);
+        task.markAsDone();
+        tasks.set(index, task);
+        notifyStatusChanged(index, task);
+        return task;
     }
 
     /**
@@ -104,8 +197,11 @@ public class TaskList {
      */
     public Task unmarkTask(int index) throws BuddyException {
         validateIndex(index, "unmark");
-        tasks.get(index).unmarkAsDone();
-        return tasks.get(index);
+        Task task = tasks.get(index);
+        task.unmarkAsDone();
+        tasks.set(index, task);
+        notifyStatusChanged(index, task);
+        return task;
     }
 
     /**
@@ -117,25 +213,101 @@ public class TaskList {
      */
     public Task remove(int index) throws BuddyException {
         validateIndex(index, "delete");
-        return tasks.remove(index);
+        Task removed = tasks.remove(index);
+        notifyRemoved(index, removed);
+        return removed;
     }
 
     /**
      * Searches the list for tasks containing a specific keyword in their description.
      * <p>
-     * The search is case-insensitive.
+     * The search is case-insensitive. Long lists are searched in chunks across cores,
+     * and the matches are still returned in list order.
      * </p>
      *
      * @param keyword The search term used to filter tasks.
      * @return An {@link ArrayList} of tasks that match the keyword.
      */
     public ArrayList<Task> findTasks(String keyword) {
-        ArrayList<Task> matchingTasks = new ArrayList<>();
-        for (Task task : tasks) {
-            if (task.getDescription().toLowerCase().contains(keyword.toLowerCase())) {
-                matchingTasks.add(task);
+        String lowerKeyword = keyword.toLowerCase();
+        return RangeTasks.compute(tasks.size(), (from, to) -> {
+            ArrayList<Task> matchingTasks = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                Task task = tasks.get(i);
+                if (task.getDescription().toLowerCase().contains(lowerKeyword)) {
+                    matchingTasks.add(task);
+                }
             }
+            return matchingTasks;
+        }, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+
+    /**
+     * Searches the list for tasks whose words are close to the words of a keyword,
+     * so that small typos still find the intended task.
+     * <p>
+     * The search is case-insensitive. The index behind it is built the first time
+     * it is needed and kept up to date with the list from then on. Off-heap lists
+     * are scanned instead.
+     * </p>
+     *
+     * @param keyword The search term, one or more words.
+     * @param maxDistance The largest number of typos allowed in each word.
+     * @return The matching tasks, closest match first.
+     */
+    public ArrayList<Task> findTasksFuzzy(String keyword, int maxDistance) {
+        if (isOffHeap()) {
+            return FuzzyIndex.scan(tasks, keyword, maxDistance);
+        }
+        if (fuzzyIndex == null) {
+            fuzzyIndex = new FuzzyIndex(tasks);
+            addListener(fuzzyIndex);
+        }
+        return fuzzyIndex.search(keyword, maxDistance);
+    }
+
+    /**
+     * Returns the tasks kept sorted in the given order.
+     * <p>
+     * The view is built the first time it is asked for and kept up to date with the
+     * list from then on, so later calls cost nothing until the tasks are read.
+     * </p>
+     *
+     * @param sortKey The order wanted.
+     * @return The sorted view of this list.
+     * @throws UnsupportedOperationException If the list is kept off the heap.
+     */
+    public SortedView getSortedView(SortKey sortKey) {
+        if (isOffHeap()) {
+            throw new UnsupportedOperationException("Off-heap task lists keep no sorted views");
+        }
+        SortedView view = sortedViews.get(sortKey);
+        if (view == null) {
+            view = new SortedView(sortKey, tasks);
+            sortedViews.put(sortKey, view);
+            addListener(view);
+        }
+        return view;
+    }
+
+    private void notifyAdded(int index, Task task) {
+        for (TaskListener listener : listeners) {
+            listener.taskAdded(index, task);
+        }
+    }
+
+    private void notifyRemoved(int index, Task task) {
+        for (TaskListener listener : listeners) {
+            listener.taskRemoved(index, task);
+        }
+    }
+
+    private void notifyStatusChanged(int index, Task task) {
+        for (TaskListener listener : listeners) {
+            listener.taskStatusChanged(index, task);
         }
-        return matchingTasks;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,41 @@
+package buddy;
+
+import buddy.task.Task;
+
+/**
+ * Receives notice of every change made to a {@link TaskList}.
+ * <p>
+ * Listeners let other components, such as reminders, keep their own view of the
+ * list up to date as it changes instead of rescanning it. All methods are called
+ * after the change has been made.
+ * </p>
+ */
+public interface TaskListener {
+
+    /**
+     * Called after a task is added to or inserted into the list.
+     *
+     * @param index The zero-based position of the new task.
+     * @param task The task that was added.
+     */
+    default void taskAdded(int index, Task task) {
+    }
+
+    /**
+     * Called after a task is removed from the list.
+     *
+     * @param index The zero-based position the task was removed from.
+     * @param task The task that was removed.
+     */
+    default void taskRemoved(int index, Task task) {
+    }
+
+    /**
+     * Called after a task is marked or unmarked.
+     *
+     * @param index The zero-based position of the task.
+     * @param task The task, already showing its new status.
+     */
+    default void taskStatusChanged(int index, Task task) {
+    }
+}
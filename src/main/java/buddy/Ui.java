@@ -1,7 +1,14 @@
 package buddy;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
 import java.util.Scanner;
+import buddy.parallel.RangeTasks;
+import buddy.query.SortKey;
+import buddy.task.Deadline;
 import buddy.task.Task;
 
 /**
@@ -14,6 +21,7 @@ import buddy.task.Task;
  */
 public class Ui {
     private static final String HORIZONTAL_LINE = "____________________________________________________________";
+    private static final int MAX_REMINDERS_SHOWN = 10;
     private Scanner scanner;
 
     /**
@@ -106,12 +114,28 @@ public class Ui {
     /**
      * Displays the complete list of tasks to the user in a numbered format.
      *
-     * @param tasks The {@link ArrayList} of all tasks currently in the list.
+     * @param tasks All tasks currently in the list.
      */
-    public void printTaskList(ArrayList<Task> tasks) {
+    public void printTaskList(List<Task> tasks) {
         System.out.println(HORIZONTAL_LINE);
-        for (int i = 0; i < tasks.size(); i++) {
-            System.out.println((i + 1) + ". " + tasks.get(i));
+        printNumbered(tasks);
+        System.out.println(HORIZONTAL_LINE);
+    }
+
+    /**
+     * Displays all tasks in a sorted order, each numbered by its position in the list
+     * so the numbers still work with commands such as <code>mark</code>.
+     *
+     * @param sortedPositions The zero-based list positions of the tasks, in the order to show them.
+     * @param tasks The tasks in list order.
+     * @param sortKey The order the tasks are in.
+     */
+    public void printSortedTaskList(PrimitiveIterator.OfInt sortedPositions, List<Task> tasks, SortKey sortKey) {
+        System.out.println(HORIZONTAL_LINE);
+        System.out.println("Here's your list in '" + sortKey.name().toLowerCase() + "' order:");
+        while (sortedPositions.hasNext()) {
+            int position = sortedPositions.nextInt();
+            System.out.println((position + 1) + ". " + tasks.get(position));
         }
         System.out.println(HORIZONTAL_LINE);
     }
@@ -135,9 +159,176 @@ public class Ui {
 
         System.out.println(HORIZONTAL_LINE);
         System.out.println("Here are the tasks containing " + keyword + " in your list:");
-        for (int i = 0; i < matchingTasks.size(); i++) {
-            System.out.println((i + 1) + ". " + matchingTasks.get(i));
+        printNumbered(matchingTasks);
+        System.out.println(HORIZONTAL_LINE);
+    }
+
+    /**
+     * Displays the session statistics collected by Buddy.
+     *
+     * @param report The formatted statistics, one entry per line.
+     */
+    public void printStats(String report) {
+        System.out.println(HORIZONTAL_LINE);
+        System.out.println("Here's how hard I've been working, woof:");
+        System.out.println(report);
+        System.out.println(HORIZONTAL_LINE);
+    }
+
+    /**
+     * Confirms that the task list was written to an export file.
+     *
+     * @param count The number of tasks exported.
+     * @param file The file that was written.
+     */
+    public void printExported(int count, String file) {
+        System.out.println(HORIZONTAL_LINE);
+        System.out.println("Fetched! I've written " + count + " tasks to " + file + ".");
+        System.out.println(HORIZONTAL_LINE);
+    }
+
+    /**
+     * Confirms that tasks were read from an import file.
+     *
+     * @param imported The number of tasks added to the list.
+     * @param skipped The number of records that could not be read.
+     * @param totalTasks The updated total number of tasks in the list.
+     */
+    public void printImported(int imported, int skipped, int totalTasks) {
+        System.out.println(HORIZONTAL_LINE);
+        System.out.println("Woof! I've brought in " + imported + " tasks.");
+        if (skipped > 0) {
+            System.out.println("I had to skip " + skipped + " lines I couldn't understand.");
         }
+        System.out.println("You now have " + totalTasks + " things on your list!");
+        System.out.println(HORIZONTAL_LINE);
+    }
+
+    /**
+     * Tells the user that some tasks in a save file could not be loaded.
+     *
+     * @param skipped The number of tasks with a corrupted deadline date.
+     */
+    public void printCorruptedTasksSkipped(int skipped) {
+        System.out.println(HORIZONTAL_LINE);
+        System.out.println("Whimper... I had to skip " + skipped + " tasks with a corrupted deadline date "
+                + "in your save file.");
         System.out.println(HORIZONTAL_LINE);
     }
+
+    /**
+     * Reminds the user of deadlines that are due today or already overdue.
+     * <p>
+     * At most ten deadlines are listed, followed by a count of the rest.
+     * </p>
+     *
+     * @param dueTasks The deadlines to remind the user of.
+     * @param today The current date, used to tell due from overdue.
+     */
+    public void printReminders(List<Deadline> dueTasks, LocalDate today) {
+        System.out.println(HORIZONTAL_LINE);
+        System.out.println("Woof woof! Don't forget about these:");
+        for (int i = 0; i < dueTasks.size() && i < MAX_REMINDERS_SHOWN; i++) {
+            Deadline deadline = dueTasks.get(i);
+            String label = deadline.getBy().isBefore(today) ? "OVERDUE" : "DUE TODAY";
+            System.out.println(label + ": " + deadline);
+        }
+        if (dueTasks.size() > MAX_REMINDERS_SHOWN) {
+            System.out.println("...and " + (dueTasks.size() - MAX_REMINDERS_SHOWN) + " more!");
+        }
+        System.out.println(HORIZONTAL_LINE);
+    }
+
+    /**
+     * Confirms that Buddy has switched to another task list.
+     *
+     * @param name The name of the list now in use.
+     * @param taskCount The number of tasks in that list.
+     */
+    public void printWorkspaceSwitched(String name, int taskCount) {
+        System.out.println(HORIZONTAL_LINE);
+        System.out.println("Fetched the '" + name + "' list! It has " + taskCount + " things on it.");
+        System.out.println(HORIZONTAL_LINE);
+    }
+
+    /**
+     * Displays the tasks selected by a query.
+     *
+     * @param results The selected tasks, in the order the query asked for.
+     * @param query The clauses of the query.
+     */
+    public void printQueryResults(ArrayList<Task> results, String query) {
+        System.out.println(HORIZONTAL_LINE);
+        if (results.isEmpty()) {
+            System.out.println("Nothing on your list matches " + query + "!");
+            System.out.println(HORIZONTAL_LINE);
+            return;
+        }
+        System.out.println("I dug up " + results.size() + " tasks for " + query + ":");
+        printNumbered(results);
+        System.out.println(HORIZONTAL_LINE);
+    }
+
+    /**
+     * Displays the tasks found by a fuzzy search, closest match first.
+     *
+     * @param matchingTasks The matching tasks, already ranked.
+     * @param keyword The search term used to find the tasks.
+     * @param maxDistance The number of typos per word that was allowed.
+     */
+    public void printFuzzyMatches(ArrayList<Task> matchingTasks, String keyword, int maxDistance) {
+        System.out.println(HORIZONTAL_LINE);
+        if (matchingTasks.isEmpty()) {
+            System.out.println("I sniffed around but found nothing within " + maxDistance
+                    + " typos of " + keyword + "!");
+            System.out.println(HORIZONTAL_LINE);
+            return;
+        }
+        System.out.println("Here are the tasks that look like " + keyword + ", closest first:");
+        printNumbered(matchingTasks);
+        System.out.println(HORIZONTAL_LINE);
+    }
+
+    /**
+     * Displays the tasks matching a keyword in every task list, grouped by list.
+     *
+     * @param matches The matching tasks of each list that had any, keyed by list name.
+     * @param keyword The search term used to filter the tasks.
+     */
+    public void printMatchingTasksInAllLists(Map<String, ArrayList<Task>> matches, String keyword) {
+        System.out.println(HORIZONTAL_LINE);
+        if (matches.isEmpty()) {
+            System.out.println("I couldn't find any tasks containing " + keyword + " in any list!");
+            System.out.println(HORIZONTAL_LINE);
+            return;
+        }
+        System.out.println("Here are the tasks containing " + keyword + " in all your lists:");
+        for (Map.Entry<String, ArrayList<Task>> entry : matches.entrySet()) {
+            System.out.println("[" + entry.getKey() + "]");
+            ArrayList<Task> tasks = entry.getValue();
+            for (int i = 0; i < tasks.size(); i++) {
+                System.out.println("  " + (i + 1) + ". " + tasks.get(i));
+            }
+        }
+        System.out.println(HORIZONTAL_LINE);
+    }
+
+    /**
+     * Prints tasks one per line, numbered from 1.
+     * <p>
+     * The lines are built in chunks, across cores for long lists, and each chunk is
+     * printed in one go, in order, as soon as it is built.
+     * </p>
+     *
+     * @param tasks The tasks to print, in order.
+     */
+    private static void printNumbered(List<Task> tasks) {
+        RangeTasks.forEachChunk(tasks.size(), (from, to) -> {
+            StringBuilder lines = new StringBuilder();
+            for (int i = from; i < to; i++) {
+                lines.append(i + 1).append(". ").append(tasks.get(i)).append(System.lineSeparator());
+            }
+            return lines.toString();
+        }, System.out::print);
+    }
 }
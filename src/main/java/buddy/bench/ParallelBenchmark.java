@@ -0,0 +1,140 @@
+package buddy.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import buddy.LaunchOptions;
+import buddy.TaskList;
+import buddy.Ui;
+import buddy.parallel.RangeTasks;
+import buddy.store.OffHeapTaskStore;
+import buddy.task.Task;
+import buddy.task.Todo;
+
+/**
+ * Measures how much splitting <code>find</code> and <code>list</code> across cores
+ * speeds them up on a large list.
+ * <p>
+ * Each operation is timed with all work on one thread and again with the range split
+ * over the common fork-join pool, on the same list, and the median times and the
+ * speedup are reported. Printed output is discarded, so the numbers cover matching
+ * and formatting rather than a terminal.
+ * </p>
+ * <p>
+ * Usage: <code>java buddy.bench.ParallelBenchmark [--tasks=N] [--runs=N] [--seed=N]
+ * [--parallel-threshold=N] [--off-heap]</code>. Descriptions are drawn the same way as
+ * by {@link WorkloadGenerator}, and the keyword searched for is a common word.
+ * </p>
+ */
+public class ParallelBenchmark {
+    private static final long DEFAULT_TASKS = 1_000_000;
+    private static final long DEFAULT_RUNS = 7;
+    private static final int WARMUP_RUNS = 2;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final PrintStream report;
+    private final int runs;
+
+    /**
+     * Constructs a benchmark that writes its report to the given stream.
+     *
+     * @param report Where to print the results.
+     * @param runs How many timed runs each measurement takes the median of.
+     */
+    public ParallelBenchmark(PrintStream report, int runs) {
+        this.report = report;
+        this.runs = runs;
+    }
+
+    /**
+     * Runs the benchmark as described in the class documentation.
+     *
+     * @param args Command line options.
+     */
+    public static void main(String[] args) {
+        LaunchOptions options = LaunchOptions.parse(args);
+        WorkloadGenerator generator = new WorkloadGenerator(WorkloadGenerator.parseMix("todo:1"), 0, 2_000, 1.1,
+                options.getLong("seed", 42), LocalDate.now());
+        int size = (int) options.getLong("tasks", DEFAULT_TASKS);
+        List<Task> store = options.has("off-heap") ? new OffHeapTaskStore() : new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            store.add(new Todo(generator.nextDescription()));
+        }
+        int threshold = (int) Math.min(Integer.MAX_VALUE,
+                options.getLong("parallel-threshold", RangeTasks.DEFAULT_THRESHOLD));
+        new ParallelBenchmark(System.out, (int) Math.max(1, options.getLong("runs", DEFAULT_RUNS)))
+                .run(new TaskList(store), generator.nextWord(), threshold);
+    }
+
+    /**
+     * Times <code>find</code>, printing its results, and <code>list</code> on the given list.
+     *
+     * @param tasks The list to work on.
+     * @param keyword The word to search for.
+     * @param threshold The parallel threshold to compare with running on one thread.
+     */
+    public void run(TaskList tasks, String keyword, int threshold) {
+        Ui ui = new Ui();
+        LinkedHashMap<String, Runnable> operations = new LinkedHashMap<>();
+        operations.put("find", () -> tasks.findTasks(keyword));
+        operations.put("find+print", () -> ui.printMatchingTasks(tasks.findTasks(keyword), keyword));
+        operations.put("list", () -> ui.printTaskList(tasks.getAllTasks()));
+
+        report.println("Tasks: " + tasks.size() + (tasks.isOffHeap() ? " (off-heap)" : "")
+                + ", keyword '" + keyword + "' matches " + tasks.findTasks(keyword).size());
+        report.println("Cores: " + Runtime.getRuntime().availableProcessors()
+                + ", fork-join parallelism: " + ForkJoinPool.getCommonPoolParallelism()
+                + ", threshold: " + threshold);
+        report.printf("%-12s %14s %14s %9s%n", "operation", "1 thread ms", "parallel ms", "speedup");
+        int previousThreshold = RangeTasks.getThreshold();
+        PrintStream console = System.out;
+        try {
+            for (Map.Entry<String, Runnable> operation : operations.entrySet()) {
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                double[][] times = time(operation.getValue(), threshold);
+                System.setOut(console);
+                double sequential = median(times[0]);
+                double parallel = median(times[1]);
+                report.printf("%-12s %14.1f %14.1f %8.2fx%n", operation.getKey(), sequential, parallel,
+                        sequential / parallel);
+            }
+        } finally {
+            System.setOut(console);
+            RangeTasks.setThreshold(previousThreshold);
+        }
+    }
+
+    /**
+     * Times an operation on one thread and split across cores, alternating between the
+     * two so that neither benefits more from the JIT compiler or a warmer cache.
+     *
+     * @return The times in milliseconds on one thread, then split across cores.
+     */
+    private double[][] time(Runnable operation, int threshold) {
+        double[][] times = new double[2][runs];
+        int[] thresholds = {Integer.MAX_VALUE, threshold};
+        for (int run = -WARMUP_RUNS; run < runs; run++) {
+            for (int mode = 0; mode < thresholds.length; mode++) {
+                RangeTasks.setThreshold(thresholds[mode]);
+                long start = System.nanoTime();
+                operation.run();
+                if (run >= 0) {
+                    times[mode][run] = (System.nanoTime() - start) / NANOS_PER_MILLI;
+                }
+            }
+        }
+        return times;
+    }
+
+    private static double median(double[] times) {
+        Arrays.sort(times);
+        return times[times.length / 2];
+    }
+}
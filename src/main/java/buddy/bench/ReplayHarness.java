@@ -0,0 +1,203 @@
+package buddy.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import buddy.Buddy;
+import buddy.BuddyException;
+import buddy.LaunchOptions;
+import buddy.Parser;
+import buddy.metrics.LatencyHistogram;
+
+/**
+ * Replays a stream of commands against Buddy in-process and reports how it coped.
+ * <p>
+ * The commands go straight to {@link Buddy#execute(String)}, with Buddy's own output
+ * discarded, so the numbers cover command processing and saving rather than a terminal.
+ * The replay runs on a list of its own, <code>bench</code> by default, which is cleared
+ * first so the user's lists are left alone. The report gives throughput, latency
+ * percentiles overall and per command, peak and retained heap, and how the save file
+ * grew over the run.
+ * </p>
+ * <p>
+ * Usage: <code>java buddy.bench.ReplayHarness --workload=FILE [--warmup=N] [--list=NAME]</code>,
+ * where the workload is typically made by {@link WorkloadGenerator}. The first
+ * <code>--warmup</code> commands are run but not measured, to let the JIT compiler settle.
+ * </p>
+ */
+public class ReplayHarness {
+    private static final int GROWTH_CHECKPOINTS = 10;
+    private static final double NANOS_PER_MICRO = 1_000.0;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final double BYTES_PER_MIB = 1024.0 * 1024.0;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final PrintStream report;
+    private final LatencyHistogram overall = new LatencyHistogram();
+    private final TreeMap<String, LatencyHistogram> byCommand = new TreeMap<>();
+    private final ArrayList<long[]> growth = new ArrayList<>();
+    private long errors;
+
+    /**
+     * Constructs a harness that writes its report to the given stream.
+     *
+     * @param report Where to print the results.
+     */
+    public ReplayHarness(PrintStream report) {
+        this.report = report;
+    }
+
+    /**
+     * Replays a workload file as described in the class documentation.
+     *
+     * @param args Command line options.
+     * @throws IOException If the workload cannot be read or the old save file cannot be removed.
+     */
+    public static void main(String[] args) throws IOException {
+        LaunchOptions options = LaunchOptions.parse(args);
+        if (!options.has("workload")) {
+            System.err.println("Usage: ReplayHarness --workload=FILE [--warmup=N] [--list=NAME]");
+            System.exit(2);
+        }
+        List<String> commands = Files.readAllLines(Paths.get(options.get("workload", "")), StandardCharsets.UTF_8);
+        new ReplayHarness(System.out).replay(commands, (int) options.getLong("warmup", 0),
+                options.get("list", "bench"));
+    }
+
+    /**
+     * Runs the commands against a fresh Buddy and prints the report.
+     *
+     * @param commands The command lines to run, in order. A "bye" line ends the replay.
+     * @param warmup The number of leading commands to leave out of the measurements.
+     * @param listName The name of the list to run the commands on.
+     * @throws IOException If the list's old save file cannot be removed.
+     */
+    public void replay(List<String> commands, int warmup, String listName) throws IOException {
+        Path saveFile = Paths.get("data", listName + ".txt");
+        Files.deleteIfExists(saveFile);
+        resetPeakHeap();
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Buddy buddy = new Buddy(LaunchOptions.parse(new String[] {"--no-reminders"}));
+        long elapsed;
+        int measured = 0;
+        try {
+            buddy.execute("use " + listName);
+            int checkpointEvery = Math.max(1, commands.size() / GROWTH_CHECKPOINTS);
+            long runStart = 0;
+            for (int i = 0; i < commands.size(); i++) {
+                String line = commands.get(i);
+                String commandWord = Parser.getCommandWord(line);
+                if (commandWord.equals("bye")) {
+                    break;
+                }
+                if (i == warmup) {
+                    runStart = System.nanoTime();
+                }
+                long start = System.nanoTime();
+                try {
+                    buddy.execute(line);
+                } catch (BuddyException e) {
+                    errors++;
+                }
+                if (i >= warmup) {
+                    long latency = System.nanoTime() - start;
+                    overall.record(latency);
+                    byCommand.computeIfAbsent(commandWord, w -> new LatencyHistogram()).record(latency);
+                    measured++;
+                }
+                if ((i + 1) % checkpointEvery == 0) {
+                    growth.add(new long[] {i + 1, Files.exists(saveFile) ? Files.size(saveFile) : 0});
+                }
+            }
+            elapsed = measured == 0 ? 0 : System.nanoTime() - runStart;
+        } catch (BuddyException e) {
+            throw new IOException("Could not switch to the '" + listName + "' list: " + e.getMessage());
+        } finally {
+            buddy.close();
+            System.setOut(console);
+        }
+        printReport(measured, elapsed, saveFile);
+    }
+
+    private void printReport(int measured, long elapsedNanos, Path saveFile) throws IOException {
+        report.println("Commands measured: " + measured + " (" + errors + " failed)");
+        report.printf("Wall time: %.3f s%n", elapsedNanos / NANOS_PER_SECOND);
+        report.printf("Throughput: %.0f commands/s%n",
+                elapsedNanos == 0 ? 0.0 : measured * NANOS_PER_SECOND / elapsedNanos);
+        report.println();
+        report.println(formatLatencyHeader());
+        report.println(formatLatency("all", overall));
+        byCommand.forEach((command, histogram) -> report.println(formatLatency(command, histogram)));
+        report.println();
+        long retainedHeap = retainedHeap();
+        report.printf("Peak heap: %.1f MiB%n", peakHeap() / BYTES_PER_MIB);
+        report.printf("Heap after GC: %.1f MiB%n", retainedHeap / BYTES_PER_MIB);
+        report.println();
+        report.println("Save file growth (" + saveFile + "):");
+        for (long[] checkpoint : growth) {
+            report.printf("  after %8d commands: %,12d bytes%n", checkpoint[0], checkpoint[1]);
+        }
+        long finalSize = Files.exists(saveFile) ? Files.size(saveFile) : 0;
+        report.printf("  final:                  %,12d bytes%n", finalSize);
+    }
+
+    private static String formatLatencyHeader() {
+        StringBuilder header = new StringBuilder(String.format("%-10s %8s", "command", "count"));
+        for (double percentile : PERCENTILES) {
+            header.append(String.format(" %10s", "p" + formatPercentile(percentile) + " us"));
+        }
+        return header.append(String.format(" %10s", "max us")).toString();
+    }
+
+    private static String formatLatency(String name, LatencyHistogram histogram) {
+        StringBuilder line = new StringBuilder(String.format("%-10s %8d", name, histogram.getCount()));
+        for (double percentile : PERCENTILES) {
+            line.append(String.format(" %10.1f", histogram.getPercentile(percentile) / NANOS_PER_MICRO));
+        }
+        return line.append(String.format(" %10.1f", histogram.getMax() / NANOS_PER_MICRO)).toString();
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Adds up the peak usage of every heap pool. Pools peak at different times, so this
+     * slightly overstates the true peak, but it is a safe upper bound for sizing.
+     */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static long retainedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,221 @@
+package buddy.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import buddy.LaunchOptions;
+
+/**
+ * Generates synthetic streams of Buddy commands for load testing.
+ * <p>
+ * Commands are drawn from a configurable mix of <code>todo</code>, <code>deadline</code>,
+ * <code>event</code>, <code>mark</code>, <code>unmark</code>, <code>delete</code> and
+ * <code>find</code>. Words in descriptions and search keywords follow a Zipf distribution
+ * over a fixed vocabulary, so a few words are very common and most are rare, as in real
+ * task lists. The generator tracks how long the list would be and steers it towards a
+ * target size: once the list is that long, additions are replaced by deletions, and
+ * commands that need an existing task become additions while the list is empty.
+ * </p>
+ * <p>
+ * Usage: <code>java buddy.bench.WorkloadGenerator [--commands=N] [--target-size=N]
+ * [--mix=todo:40,deadline:15,...] [--vocabulary=N] [--skew=S] [--seed=N] [--start-date=YYYY-MM-DD]
+ * [--out=FILE]</code>. Deadlines fall within a year of the start date, today by default.
+ * The stream is written to standard output unless <code>--out</code> is given.
+ * </p>
+ */
+public class WorkloadGenerator {
+    private static final String DEFAULT_MIX = "todo:35,deadline:15,event:10,mark:12,unmark:3,delete:10,find:15";
+    private static final long DEFAULT_COMMANDS = 10_000;
+    private static final long DEFAULT_TARGET_SIZE = 1_000;
+    private static final long DEFAULT_VOCABULARY = 2_000;
+    private static final String DEFAULT_SKEW = "1.1";
+    private static final String[] SYLLABLES = {
+        "ba", "ko", "ri", "mu", "te", "sa", "lo", "ne", "pi", "da", "fu", "ga", "ve", "zo", "chi", "ran"
+    };
+    private static final String[] DAYS = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
+
+    private final Random random;
+    private final String[] vocabulary;
+    private final double[] cumulativeWeights;
+    private final String[] commandWords;
+    private final double[] cumulativeMix;
+    private final int targetSize;
+    private final LocalDate startDate;
+    private int listSize;
+
+    /**
+     * Constructs a generator.
+     *
+     * @param mix The relative weight of each command word.
+     * @param targetSize The list size to steer towards.
+     * @param vocabularySize The number of distinct words to draw from.
+     * @param skew The Zipf exponent; larger values make common words more dominant.
+     * @param seed The random seed, so the same settings always give the same stream.
+     * @param startDate The earliest due date given to deadlines.
+     */
+    public WorkloadGenerator(Map<String, Integer> mix, int targetSize, int vocabularySize, double skew, long seed,
+            LocalDate startDate) {
+        this.random = new Random(seed);
+        this.startDate = startDate;
+        this.targetSize = targetSize;
+        this.vocabulary = new String[vocabularySize];
+        this.cumulativeWeights = new double[vocabularySize];
+        double total = 0;
+        for (int rank = 0; rank < vocabularySize; rank++) {
+            vocabulary[rank] = makeWord(rank);
+            total += 1.0 / Math.pow(rank + 1, skew);
+            cumulativeWeights[rank] = total;
+        }
+        this.commandWords = mix.keySet().toArray(new String[0]);
+        this.cumulativeMix = new double[commandWords.length];
+        double mixTotal = 0;
+        for (int i = 0; i < commandWords.length; i++) {
+            mixTotal += mix.get(commandWords[i]);
+            cumulativeMix[i] = mixTotal;
+        }
+    }
+
+    /**
+     * Generates a workload as described in the class documentation.
+     *
+     * @param args Command line options.
+     * @throws IOException If the output cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        LaunchOptions options = LaunchOptions.parse(args);
+        WorkloadGenerator generator = new WorkloadGenerator(
+                parseMix(options.get("mix", DEFAULT_MIX)),
+                (int) options.getLong("target-size", DEFAULT_TARGET_SIZE),
+                (int) Math.max(1, options.getLong("vocabulary", DEFAULT_VOCABULARY)),
+                Double.parseDouble(options.get("skew", DEFAULT_SKEW)),
+                options.getLong("seed", 42),
+                options.has("start-date") ? LocalDate.parse(options.get("start-date", "")) : LocalDate.now());
+        long count = options.getLong("commands", DEFAULT_COMMANDS);
+        Writer out = options.has("out")
+                ? Files.newBufferedWriter(Paths.get(options.get("out", "")), StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try (Writer writer = out) {
+            for (long i = 0; i < count; i++) {
+                writer.write(generator.next());
+                writer.write(System.lineSeparator());
+            }
+        }
+    }
+
+    /**
+     * Parses a mix such as <code>todo:40,find:10</code> into command weights.
+     *
+     * @param mix The mix, as comma-separated <code>command:weight</code> pairs.
+     * @return The weight of each command, in the order given.
+     * @throws IllegalArgumentException If an entry is malformed or names an unsupported command.
+     */
+    public static LinkedHashMap<String, Integer> parseMix(String mix) {
+        LinkedHashMap<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2 || !Arrays.asList("todo", "deadline", "event", "mark", "unmark", "delete", "find")
+                    .contains(parts[0])) {
+                throw new IllegalArgumentException("Bad mix entry: " + entry);
+            }
+            weights.put(parts[0], Integer.parseInt(parts[1]));
+        }
+        return weights;
+    }
+
+    /**
+     * Returns the next command of the stream.
+     *
+     * @return A command line as a user would type it.
+     */
+    public String next() {
+        String command = pickCommand();
+        boolean needsTask = command.equals("mark") || command.equals("unmark") || command.equals("delete");
+        boolean isAddition = command.equals("todo") || command.equals("deadline") || command.equals("event");
+        if (needsTask && listSize == 0) {
+            command = "todo";
+        } else if (isAddition && listSize >= targetSize && targetSize > 0) {
+            command = "delete";
+        }
+        switch (command) {
+        case "todo":
+            listSize++;
+            return "todo " + nextDescription();
+        case "deadline":
+            listSize++;
+            return "deadline " + nextDescription() + " /by " + startDate.plusDays(random.nextInt(365));
+        case "event":
+            listSize++;
+            int hour = 8 + random.nextInt(10);
+            return "event " + nextDescription() + " /from " + DAYS[random.nextInt(DAYS.length)] + " " + hour
+                    + ":00 /to " + (hour + 1) + ":00";
+        case "delete":
+            return "delete " + (1 + random.nextInt(listSize--));
+        case "find":
+            return "find " + nextWord();
+        default:
+            return command + " " + (1 + random.nextInt(listSize));
+        }
+    }
+
+    private String pickCommand() {
+        double point = random.nextDouble() * cumulativeMix[cumulativeMix.length - 1];
+        return commandWords[search(cumulativeMix, point)];
+    }
+
+    /**
+     * Returns a task description of a few words drawn from the vocabulary.
+     *
+     * @return The description.
+     */
+    public String nextDescription() {
+        int words = 2 + random.nextInt(3);
+        ArrayList<String> parts = new ArrayList<>(words);
+        for (int i = 0; i < words; i++) {
+            parts.add(nextWord());
+        }
+        return String.join(" ", parts);
+    }
+
+    /**
+     * Returns a word drawn from the vocabulary, common words most often.
+     *
+     * @return The word.
+     */
+    public String nextWord() {
+        double point = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        return vocabulary[search(cumulativeWeights, point)];
+    }
+
+    /**
+     * Returns the first index whose cumulative weight exceeds the given point.
+     */
+    private static int search(double[] cumulative, double point) {
+        int index = Arrays.binarySearch(cumulative, point);
+        index = index >= 0 ? index + 1 : -index - 1;
+        return Math.min(index, cumulative.length - 1);
+    }
+
+    /**
+     * Builds a distinct pronounceable word for each rank by spelling the rank in syllables.
+     */
+    private static String makeWord(int rank) {
+        StringBuilder word = new StringBuilder();
+        int n = rank;
+        do {
+            word.append(SYLLABLES[n % SYLLABLES.length]);
+            n /= SYLLABLES.length;
+        } while (n > 0);
+        return word.toString();
+    }
+}
@@ -0,0 +1,197 @@
+package buddy.history;
+
+import buddy.BuddyException;
+import buddy.TaskList;
+import buddy.task.Task;
+
+/**
+ * Represents one change made to the task list, together with enough detail to reverse it.
+ * <p>
+ * An <code>Edit</code> only holds the position and the affected task, never a copy
+ * of the list, so recording it costs the same no matter how long the list is.
+ * </p>
+ */
+public class Edit {
+    /**
+     * The kinds of change that can be undone.
+     */
+    public enum Type {
+        ADD, REMOVE, STATUS
+    }
+
+    private final Type type;
+    private final int index;
+    private final Task task;
+    private final boolean wasDone;
+
+    private Edit(Type type, int index, Task task, boolean wasDone) {
+        this.type = type;
+        this.index = index;
+        this.task = task;
+        this.wasDone = wasDone;
+    }
+
+    /**
+     * Creates an edit for a task that was added to the list.
+     *
+     * @param index The zero-based position the task was added at.
+     * @param task The added task.
+     * @return The new edit.
+     */
+    public static Edit added(int index, Task task) {
+        return new Edit(Type.ADD, index, task, task.isDone());
+    }
+
+    /**
+     * Creates an edit for a task that was deleted from the list.
+     *
+     * @param index The zero-based position the task was removed from.
+     * @param task The removed task.
+     * @return The new edit.
+     */
+    public static Edit removed(int index, Task task) {
+        return new Edit(Type.REMOVE, index, task, task.isDone());
+    }
+
+    /**
+     * Creates an edit for a task that was marked or unmarked.
+     *
+     * @param index The zero-based position of the task.
+     * @param task The task after the change.
+     * @param wasDone Whether the task was done before the change.
+     * @return The new edit.
+     */
+    public static Edit statusChanged(int index, Task task, boolean wasDone) {
+        return new Edit(Type.STATUS, index, task, wasDone);
+    }
+
+    /**
+     * Returns the kind of change this edit represents.
+     *
+     * @return The edit type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the position in the list where the change was made.
+     *
+     * @return The zero-based index.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the task that was added, removed or changed.
+     *
+     * @return The affected task.
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * Returns the task on the list that this edit currently applies to.
+     * <p>
+     * For status changes this is looked up by position, since an edit restored
+     * from a history file holds a copy of the task rather than the one on the list.
+     * </p>
+     *
+     * @param tasks The list the edit was made on.
+     * @return The task to show to the user.
+     */
+    public Task getAffectedTask(TaskList tasks) {
+        if (type == Type.STATUS && index >= 0 && index < tasks.size()) {
+            return tasks.get(index);
+        }
+        return task;
+    }
+
+    /**
+     * Returns whether the task was done before this edit was made.
+     *
+     * @return The earlier completion status.
+     */
+    public boolean wasDone() {
+        return wasDone;
+    }
+
+    /**
+     * Reverses this edit on the given list.
+     *
+     * @param tasks The list the edit was made on.
+     * @return The task affected by the reversal.
+     * @throws BuddyException If the list no longer matches the edit.
+     */
+    public Task revert(TaskList tasks) throws BuddyException {
+        switch (type) {
+        case ADD:
+            requireTaskAtIndex(tasks);
+            return tasks.remove(index);
+        case REMOVE:
+            tasks.insert(index, task);
+            return task;
+        default:
+            requireTaskAtIndex(tasks);
+            return setDone(tasks, wasDone);
+        }
+    }
+
+    /**
+     * Makes this edit again on the given list after it was reverted.
+     *
+     * @param tasks The list the edit was made on.
+     * @return The task affected by the edit.
+     * @throws BuddyException If the list no longer matches the edit.
+     */
+    public Task reapply(TaskList tasks) throws BuddyException {
+        switch (type) {
+        case ADD:
+            tasks.insert(index, task);
+            return task;
+        case REMOVE:
+            requireTaskAtIndex(tasks);
+            return tasks.remove(index);
+        default:
+            requireTaskAtIndex(tasks);
+            return setDone(tasks, !wasDone);
+        }
+    }
+
+    /**
+     * Returns the message Buddy shows after this edit has been undone or redone.
+     *
+     * @param isUndo {@code true} for an undo, {@code false} for a redo.
+     * @return The message to show above the affected task.
+     */
+    public String describe(boolean isUndo) {
+        boolean isNowOnList = (type == Type.ADD) != isUndo;
+        String prefix = isUndo ? "Undone! " : "Redone! ";
+        if (type == Type.STATUS) {
+            return prefix + (isUndo ? "This task is back to how it was:" : "I've changed this task again:");
+        } else if (isNowOnList) {
+            return prefix + "I've put this back on your list:";
+        } else {
+            return prefix + "I've taken this off your list again:";
+        }
+    }
+
+    /**
+     * Checks that the task this edit is about is still at its position, so an edit
+     * that no longer fits the list never changes some other task.
+     *
+     * @throws BuddyException If another task, or no task, is at that position.
+     */
+    private void requireTaskAtIndex(TaskList tasks) throws BuddyException {
+        if (index < 0 || index >= tasks.size() || !tasks.get(index).hasSameDetails(task)) {
+            throw new BuddyException("Whimper... task " + (index + 1) + " isn't the one I remember changing, "
+                    + "so I won't touch it!");
+        }
+    }
+
+    private Task setDone(TaskList tasks, boolean isDone) throws BuddyException {
+        return isDone ? tasks.markTask(index) : tasks.unmarkTask(index);
+    }
+}
@@ -0,0 +1,303 @@
+package buddy.history;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+
+import buddy.BuddyException;
+import buddy.Storage;
+import buddy.TaskList;
+import buddy.task.Task;
+
+/**
+ * Keeps the undo and redo stacks for a task list.
+ * <p>
+ * Only the most recent edits, up to a fixed limit, are kept in memory. When a log
+ * file is given, every edit, undo and redo is also appended to it so the history
+ * survives a restart. The log is replayed and compacted when it is opened, and
+ * compacted again whenever it grows well past the limit.
+ * </p>
+ */
+public class History {
+    private static final String DO = "DO";
+    private static final String UNDO = "UNDO";
+    private static final String REDO = "REDO";
+    private static final int COMPACT_FACTOR = 4;
+
+    private final int limit;
+    private final ArrayDeque<Edit> undoStack = new ArrayDeque<>();
+    private final ArrayDeque<Edit> redoStack = new ArrayDeque<>();
+    private final Path logFile;
+    private final Storage storage;
+    private BufferedWriter log;
+    private int logLines;
+
+    /**
+     * Constructs an in-memory history that keeps at most <code>limit</code> undoable edits.
+     *
+     * @param limit The maximum number of edits to remember.
+     */
+    public History(int limit) {
+        this.limit = limit;
+        this.logFile = null;
+        this.storage = null;
+    }
+
+    /**
+     * Constructs a history that is persisted to a log file, restoring any edits already in it.
+     *
+     * @param limit The maximum number of edits to remember.
+     * @param logFile The file the history is written to.
+     * @param storage The storage whose task format is used for tasks in the log.
+     * @throws BuddyException If the log file cannot be read or written.
+     */
+    public History(int limit, Path logFile, Storage storage) throws BuddyException {
+        this.limit = limit;
+        this.logFile = logFile;
+        this.storage = storage;
+        try {
+            if (Files.exists(logFile)) {
+                replay(Files.readAllLines(logFile, StandardCharsets.UTF_8));
+            }
+            compact();
+        } catch (IOException e) {
+            throw new BuddyException("I couldn't open your undo history at " + logFile + "!");
+        }
+    }
+
+    /**
+     * Records a new edit. Any edits that were undone can no longer be redone afterwards.
+     *
+     * @param edit The edit that was just made.
+     * @throws BuddyException If the edit cannot be written to the log.
+     */
+    public void record(Edit edit) throws BuddyException {
+        pushUndo(edit);
+        redoStack.clear();
+        if (logFile != null) {
+            append(DO + "|" + formatEdit(edit));
+        }
+    }
+
+    /**
+     * Reverts the most recent edit on the given list. Call {@link #recordUndo()} once the
+     * list has been saved, so the log never runs ahead of the save file.
+     * <p>
+     * If the list no longer matches the edit, the edit is forgotten, in memory and in the
+     * log, so that the next undo goes on to the edit before it.
+     * </p>
+     *
+     * @param tasks The list to change.
+     * @return The edit that was undone.
+     * @throws BuddyException If there is nothing to undo or the list no longer matches the edit.
+     */
+    public Edit undo(TaskList tasks) throws BuddyException {
+        if (undoStack.isEmpty()) {
+            throw new BuddyException("There's nothing left to undo, woof!");
+        }
+        Edit edit = undoStack.peekLast();
+        try {
+            edit.revert(tasks);
+        } catch (BuddyException e) {
+            undoStack.removeLast();
+            throw forget(e, "undo will go on to the one before it");
+        }
+        redoStack.addLast(undoStack.removeLast());
+        return edit;
+    }
+
+    /**
+     * Makes the most recently undone edit again on the given list. Call {@link #recordRedo()}
+     * once the list has been saved, so the log never runs ahead of the save file.
+     * <p>
+     * If the list no longer matches the edit, the edit is forgotten, in memory and in the
+     * log, so that the next redo goes on to the edit after it.
+     * </p>
+     *
+     * @param tasks The list to change.
+     * @return The edit that was redone.
+     * @throws BuddyException If there is nothing to redo or the list no longer matches the edit.
+     */
+    public Edit redo(TaskList tasks) throws BuddyException {
+        if (redoStack.isEmpty()) {
+            throw new BuddyException("There's nothing to redo, woof!");
+        }
+        Edit edit = redoStack.peekLast();
+        try {
+            edit.reapply(tasks);
+        } catch (BuddyException e) {
+            redoStack.removeLast();
+            throw forget(e, "redo will go on to the one after it");
+        }
+        undoStack.addLast(redoStack.removeLast());
+        return edit;
+    }
+
+    /**
+     * Writes the most recent {@link #undo(TaskList)} to the log.
+     *
+     * @throws BuddyException If the log cannot be written.
+     */
+    public void recordUndo() throws BuddyException {
+        append(UNDO);
+    }
+
+    /**
+     * Writes the most recent {@link #redo(TaskList)} to the log.
+     *
+     * @throws BuddyException If the log cannot be written.
+     */
+    public void recordRedo() throws BuddyException {
+        append(REDO);
+    }
+
+    /**
+     * Flushes and closes the log file, if there is one.
+     */
+    public void close() {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            // Every entry was already flushed when it was written
+        }
+        log = null;
+    }
+
+    /**
+     * Rewrites the log without an edit that was just dropped from a stack because it no
+     * longer matched the list, and builds the message telling the user so.
+     *
+     * @param cause Why the edit could not be made.
+     * @param next What the next undo or redo will do instead.
+     * @return The exception to show the user.
+     */
+    private BuddyException forget(BuddyException cause, String next) {
+        String message = cause.getMessage() + " I've forgotten that change, so the next " + next + ".";
+        if (logFile != null) {
+            try {
+                compact();
+            } catch (IOException e) {
+                message += " I couldn't write that down in your undo history, though!";
+            }
+        }
+        return new BuddyException(message);
+    }
+
+    private void pushUndo(Edit edit) {
+        undoStack.addLast(edit);
+        if (undoStack.size() > limit) {
+            undoStack.removeFirst();
+        }
+    }
+
+    /**
+     * Rebuilds both stacks from the entries of an existing log file.
+     * Entries that cannot be parsed are skipped.
+     */
+    private void replay(List<String> lines) {
+        for (String line : lines) {
+            if (line.equals(UNDO) && !undoStack.isEmpty()) {
+                redoStack.addLast(undoStack.removeLast());
+            } else if (line.equals(REDO) && !redoStack.isEmpty()) {
+                undoStack.addLast(redoStack.removeLast());
+            } else if (line.startsWith(DO + "|")) {
+                Edit edit = parseEdit(line.substring(DO.length() + 1));
+                if (edit != null) {
+                    pushUndo(edit);
+                    redoStack.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrites the log so it holds only the edits currently in memory.
+     * <p>
+     * The undo stack is written oldest first, followed by the redo stack in the
+     * order the edits were originally made and one undo entry per redoable edit.
+     * </p>
+     */
+    private void compact() throws IOException {
+        close();
+        Path parent = logFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = logFile.resolveSibling(logFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Edit edit : undoStack) {
+                writer.write(DO + "|" + formatEdit(edit));
+                writer.newLine();
+            }
+            Iterator<Edit> undone = redoStack.descendingIterator();
+            while (undone.hasNext()) {
+                writer.write(DO + "|" + formatEdit(undone.next()));
+                writer.newLine();
+            }
+            for (int i = 0; i < redoStack.size(); i++) {
+                writer.write(UNDO);
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, logFile, StandardCopyOption.REPLACE_EXISTING);
+        logLines = undoStack.size() + 2 * redoStack.size();
+        log = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    private void append(String entry) throws BuddyException {
+        if (logFile == null) {
+            return;
+        }
+        try {
+            log.write(entry);
+            log.newLine();
+            log.flush();
+            logLines++;
+            if (logLines > COMPACT_FACTOR * limit) {
+                compact();
+            }
+        } catch (IOException e) {
+            throw new BuddyException("Whimper... I couldn't write your undo history!");
+        }
+    }
+
+    private String formatEdit(Edit edit) {
+        return edit.getType() + "|" + edit.getIndex() + "|" + (edit.wasDone() ? "1" : "0") + "|"
+                + storage.formatTaskForFile(edit.getTask());
+    }
+
+    private Edit parseEdit(String entry) {
+        String[] parts = entry.split("\\|", 4);
+        if (parts.length < 4) {
+            return null;
+        }
+        try {
+            int index = Integer.parseInt(parts[1]);
+            Task task = storage.parseTask(parts[3]);
+            if (task == null) {
+                return null;
+            }
+            switch (Edit.Type.valueOf(parts[0])) {
+            case ADD:
+                return Edit.added(index, task);
+            case REMOVE:
+                return Edit.removed(index, task);
+            default:
+                return Edit.statusChanged(index, task, parts[2].equals("1"));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package buddy.index;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * A BK-tree of words, for finding every word within a given edit distance of a query.
+ * <p>
+ * Each child of a node is filed under its edit distance from that node. Because edit
+ * distance obeys the triangle inequality, a search for words within distance
+ * <code>k</code> of a query only has to visit children filed under
+ * <code>d - k</code> to <code>d + k</code>, where <code>d</code> is the query's distance
+ * from the node, which skips most of the tree for small <code>k</code>.
+ * </p>
+ */
+public class BkTree {
+
+    /**
+     * A word in the tree together with its children, keyed by distance.
+     */
+    private static class Node {
+        private final String word;
+        private final HashMap<Integer, Node> children = new HashMap<>();
+
+        private Node(String word) {
+            this.word = word;
+        }
+    }
+
+    /**
+     * A word found by a search and its distance from the query.
+     */
+    public static class Match {
+        private final String word;
+        private final int distance;
+
+        private Match(String word, int distance) {
+            this.word = word;
+            this.distance = distance;
+        }
+
+        /**
+         * Returns the matching word.
+         *
+         * @return The word stored in the tree.
+         */
+        public String getWord() {
+            return word;
+        }
+
+        /**
+         * Returns the edit distance between the word and the query.
+         *
+         * @return The distance.
+         */
+        public int getDistance() {
+            return distance;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    /**
+     * Returns the number of distinct words in the tree.
+     *
+     * @return The word count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a word to the tree. Adding a word that is already present does nothing.
+     *
+     * @param word The word to add.
+     */
+    public void add(String word) {
+        if (root == null) {
+            root = new Node(word);
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(word, node.word, Integer.MAX_VALUE);
+            if (distance == 0) {
+                return;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(word));
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Finds every word within the given edit distance of the query.
+     *
+     * @param query The word to look for.
+     * @param maxDistance The largest edit distance to accept.
+     * @return The matching words, in no particular order.
+     */
+    public ArrayList<Match> search(String query, int maxDistance) {
+        ArrayList<Match> matches = new ArrayList<>();
+        if (root == null) {
+            return matches;
+        }
+        ArrayDeque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(query, node.word, Integer.MAX_VALUE);
+            if (distance <= maxDistance) {
+                matches.add(new Match(node.word, distance));
+            }
+            for (int d = Math.max(1, distance - maxDistance); d <= distance + maxDistance; d++) {
+                Node child = node.children.get(d);
+                if (child != null) {
+                    pending.push(child);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Computes the Levenshtein distance between two words, giving up early once it
+     * is certain to exceed <code>limit</code>.
+     *
+     * @param a The first word.
+     * @param b The second word.
+     * @param limit The largest distance of interest.
+     * @return The edit distance, or <code>limit + 1</code> if it is larger than <code>limit</code>.
+     */
+    public static int distance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,252 @@
+package buddy.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import buddy.TaskListener;
+import buddy.jfr.IndexEvent;
+import buddy.task.Task;
+
+/**
+ * An index of the words in task descriptions that finds tasks despite typos.
+ * <p>
+ * Every distinct word is kept once in a {@link BkTree}, and each word points to the
+ * tasks whose descriptions contain it, so a search only computes edit distances
+ * against the part of the vocabulary the tree cannot rule out rather than against
+ * every task. The index follows the task list as a {@link TaskListener}.
+ * </p>
+ * <p>
+ * Words that no longer belong to any task are left in the tree and skipped by
+ * searches; the tree is rebuilt once such words outnumber the live ones.
+ * </p>
+ * <p>
+ * The tasks are also kept in list order in a {@link PositionTree}, so matches that are
+ * equally close can be ranked by their current list position, as {@link #scan} does.
+ * </p>
+ */
+public class FuzzyIndex implements TaskListener {
+    private static final String INDEX_NAME = "fuzzy";
+    private static final String WORD_SEPARATOR = "[^\\p{L}\\p{N}]+";
+    private static final int MIN_STALE_WORDS_FOR_REBUILD = 1024;
+
+    private BkTree words = new BkTree();
+    private final HashMap<String, LinkedHashSet<Task>> postings = new HashMap<>();
+    private final PositionTree<Task> listOrder = new PositionTree<>();
+    private final IdentityHashMap<Task, PositionTree.Node<Task>> slots = new IdentityHashMap<>();
+
+    /**
+     * Constructs an index over the given tasks.
+     *
+     * @param tasks The tasks currently on the list, in list order.
+     */
+    public FuzzyIndex(List<Task> tasks) {
+        IndexEvent event = new IndexEvent();
+        event.begin();
+        for (Task task : tasks) {
+            index(listOrder.size(), task);
+        }
+        commit(event, "build");
+    }
+
+    /**
+     * Finds the tasks whose descriptions contain, for every word of the query, a word
+     * within <code>maxDistance</code> edits of it.
+     * <p>
+     * Tasks are ranked by the total distance of their closest words, closest first;
+     * ties keep list order.
+     * </p>
+     *
+     * @param query The words to look for.
+     * @param maxDistance The largest number of edits allowed per word.
+     * @return The matching tasks, best match first.
+     */
+    public ArrayList<Task> search(String query, int maxDistance) {
+        IdentityHashMap<Task, Integer> scores = null;
+        for (String queryWord : tokenize(query)) {
+            IdentityHashMap<Task, Integer> best = new IdentityHashMap<>();
+            for (BkTree.Match match : words.search(queryWord, maxDistance)) {
+                LinkedHashSet<Task> tasks = postings.get(match.getWord());
+                if (tasks == null) {
+                    continue;
+                }
+                for (Task task : tasks) {
+                    best.merge(task, match.getDistance(), Math::min);
+                }
+            }
+            if (scores == null) {
+                scores = best;
+            } else {
+                IdentityHashMap<Task, Integer> combined = new IdentityHashMap<>();
+                for (Map.Entry<Task, Integer> entry : scores.entrySet()) {
+                    Integer distance = best.get(entry.getKey());
+                    if (distance != null) {
+                        combined.put(entry.getKey(), entry.getValue() + distance);
+                    }
+                }
+                scores = combined;
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        if (scores == null) {
+            return new ArrayList<>();
+        }
+        ArrayList<Task> matches = new ArrayList<>(scores.size());
+        int[] totals = new int[scores.size()];
+        int[] positions = new int[scores.size()];
+        for (Map.Entry<Task, Integer> entry : scores.entrySet()) {
+            totals[matches.size()] = entry.getValue();
+            positions[matches.size()] = listOrder.positionOf(slots.get(entry.getKey()));
+            matches.add(entry.getKey());
+        }
+        return rank(matches, totals, positions);
+    }
+
+    /**
+     * Finds the same tasks as {@link #search(String, int)} would without an index, by
+     * comparing the query with the words of every task in turn.
+     * <p>
+     * Ties keep list order. Used for lists too large to keep an index of on the heap.
+     * </p>
+     *
+     * @param tasks The tasks to search, in list order.
+     * @param query The words to look for.
+     * @param maxDistance The largest number of edits allowed per word.
+     * @return The matching tasks, best match first.
+     */
+    public static ArrayList<Task> scan(List<Task> tasks, String query, int maxDistance) {
+        LinkedHashSet<String> queryWords = tokenize(query);
+        ArrayList<Task> matches = new ArrayList<>();
+        int[] totals = new int[16];
+        if (queryWords.isEmpty()) {
+            return matches;
+        }
+        for (Task task : tasks) {
+            LinkedHashSet<String> taskWords = tokenize(task.getDescription());
+            int total = 0;
+            for (String queryWord : queryWords) {
+                int best = maxDistance + 1;
+                for (String taskWord : taskWords) {
+                    best = Math.min(best, BkTree.distance(queryWord, taskWord, best));
+                }
+                if (best > maxDistance) {
+                    total = -1;
+                    break;
+                }
+                total += best;
+            }
+            if (total >= 0) {
+                if (matches.size() == totals.length) {
+                    totals = Arrays.copyOf(totals, totals.length * 2);
+                }
+                totals[matches.size()] = total;
+                matches.add(task);
+            }
+        }
+        // Matches were found in list order, so their own order stands in for list position
+        int[] positions = new int[matches.size()];
+        Arrays.setAll(positions, i -> i);
+        return rank(matches, totals, positions);
+    }
+
+    /**
+     * Orders matches by total distance, closest first, and then by list position.
+     *
+     * @param matches The matching tasks.
+     * @param totals The total distance of each match.
+     * @param positions The list position of each match, or anything in the same order.
+     * @return The matches, best first.
+     */
+    private static ArrayList<Task> rank(ArrayList<Task> matches, int[] totals, int[] positions) {
+        Integer[] order = new Integer[matches.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> totals[a] != totals[b]
+                ? Integer.compare(totals[a], totals[b])
+                : Integer.compare(positions[a], positions[b]));
+        ArrayList<Task> ranked = new ArrayList<>(order.length);
+        for (int i : order) {
+            ranked.add(matches.get(i));
+        }
+        return ranked;
+    }
+
+    @Override
+    public void taskAdded(int index, Task task) {
+        IndexEvent event = new IndexEvent();
+        event.begin();
+        index(index, task);
+        commit(event, "add");
+    }
+
+    @Override
+    public void taskRemoved(int index, Task task) {
+        IndexEvent event = new IndexEvent();
+        event.begin();
+        slots.remove(listOrder.remove(index).getValue());
+        for (String word : tokenize(task.getDescription())) {
+            LinkedHashSet<Task> tasks = postings.get(word);
+            if (tasks != null && tasks.remove(task) && tasks.isEmpty()) {
+                postings.remove(word);
+            }
+        }
+        commit(event, "remove");
+        int staleWords = words.size() - postings.size();
+        if (staleWords > postings.size() && staleWords > MIN_STALE_WORDS_FOR_REBUILD) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuilds the tree from the words that still belong to a task.
+     */
+    private void rebuild() {
+        IndexEvent event = new IndexEvent();
+        event.begin();
+        words = new BkTree();
+        for (String word : postings.keySet()) {
+            words.add(word);
+        }
+        commit(event, "rebuild");
+    }
+
+    private void index(int position, Task task) {
+        slots.put(task, listOrder.insert(position, task));
+        for (String word : tokenize(task.getDescription())) {
+            postings.computeIfAbsent(word, w -> {
+                words.add(w);
+                return new LinkedHashSet<>();
+            }).add(task);
+        }
+    }
+
+    private void commit(IndexEvent event, String operation) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.index = INDEX_NAME;
+            event.operation = operation;
+            event.entries = postings.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Splits text into its lowercase words, ignoring punctuation.
+     */
+    private static LinkedHashSet<String> tokenize(String text) {
+        LinkedHashSet<String> tokens = new LinkedHashSet<>();
+        for (String token : text.toLowerCase().split(WORD_SEPARATOR)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
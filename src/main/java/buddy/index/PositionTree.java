@@ -0,0 +1,192 @@
+package buddy.index;
+
+import java.util.SplittableRandom;
+
+/**
+ * Values kept in list order, where each value's current position can be found from its node.
+ * <p>
+ * The nodes form a treap ordered by list position rather than by key: each node counts
+ * the nodes below it, so inserting or removing at a position, and working out the
+ * position of a node by walking up to the root, cost O(log n) on average. Indexes use it
+ * to follow a task list's numbering without renumbering every later task on each change.
+ * </p>
+ *
+ * @param <E> The type of value held at each position.
+ */
+class PositionTree<E> {
+
+    /**
+     * One position in the tree. It keeps its value for as long as it is in the tree,
+     * so its position can be asked for again after other positions have changed.
+     *
+     * @param <E> The type of value held.
+     */
+    static final class Node<E> {
+        private E value;
+        private final int priority;
+        private Node<E> left;
+        private Node<E> right;
+        private Node<E> parent;
+        private int size = 1;
+
+        private Node(E value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+
+        /**
+         * Returns the value held at this position.
+         *
+         * @return The value.
+         */
+        E getValue() {
+            return value;
+        }
+
+        /**
+         * Replaces the value held at this position.
+         *
+         * @param value The new value.
+         */
+        void setValue(E value) {
+            this.value = value;
+        }
+    }
+
+    private final SplittableRandom priorities = new SplittableRandom(0x5EED);
+    private Node<E> root;
+    private Node<E> splitLeft;
+    private Node<E> splitRight;
+
+    /**
+     * Returns the number of positions in the tree.
+     *
+     * @return The size.
+     */
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * Inserts a value at a position, moving the values from that position on up by one.
+     *
+     * @param index The position, from 0 to {@link #size()}.
+     * @param value The value to insert.
+     * @return The node holding the value.
+     */
+    Node<E> insert(int index, E value) {
+        Node<E> node = new Node<>(value, priorities.nextInt());
+        split(root, index);
+        Node<E> after = splitRight;
+        root = merge(merge(splitLeft, node), after);
+        root.parent = null;
+        return node;
+    }
+
+    /**
+     * Removes the value at a position, moving the values after it down by one.
+     *
+     * @param index The position, from 0 to one less than {@link #size()}.
+     * @return The node that held the value.
+     */
+    Node<E> remove(int index) {
+        split(root, index);
+        Node<E> before = splitLeft;
+        split(splitRight, 1);
+        Node<E> removed = splitLeft;
+        root = merge(before, splitRight);
+        if (root != null) {
+            root.parent = null;
+        }
+        removed.parent = null;
+        return removed;
+    }
+
+    /**
+     * Returns the node at a position.
+     *
+     * @param index The position, from 0 to one less than {@link #size()}.
+     * @return The node at that position.
+     */
+    Node<E> get(int index) {
+        Node<E> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Returns the current position of a node that is in the tree.
+     *
+     * @param node The node.
+     * @return Its zero-based position.
+     */
+    int positionOf(Node<E> node) {
+        int position = size(node.left);
+        for (Node<E> child = node; child.parent != null; child = child.parent) {
+            if (child == child.parent.right) {
+                position += size(child.parent.left) + 1;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Splits a subtree into its first <code>count</code> nodes, left in {@link #splitLeft},
+     * and the rest, left in {@link #splitRight}.
+     */
+    private void split(Node<E> node, int count) {
+        if (node == null) {
+            splitLeft = null;
+            splitRight = null;
+        } else if (size(node.left) >= count) {
+            split(node.left, count);
+            node.left = splitRight;
+            update(node);
+            splitRight = node;
+        } else {
+            split(node.right, count - size(node.left) - 1);
+            node.right = splitLeft;
+            update(node);
+            splitLeft = node;
+        }
+    }
+
+    private Node<E> merge(Node<E> first, Node<E> second) {
+        if (first == null) {
+            return second;
+        } else if (second == null) {
+            return first;
+        } else if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            update(first);
+            return first;
+        } else {
+            second.left = merge(first, second.left);
+            update(second);
+            return second;
+        }
+    }
+
+    private void update(Node<E> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        if (node.left != null) {
+            node.left.parent = node;
+        }
+        if (node.right != null) {
+            node.right.parent = node;
+        }
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+}
@@ -0,0 +1,175 @@
+package buddy.index;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.TreeSet;
+
+import buddy.TaskListener;
+import buddy.jfr.IndexEvent;
+import buddy.query.SortKey;
+import buddy.task.Task;
+
+/**
+ * The tasks of a list kept permanently sorted in one {@link SortKey} order.
+ * <p>
+ * The tasks live in a red-black tree ({@link TreeSet}) and the view follows the task
+ * list as a {@link TaskListener}, so every change costs O(log n) and reading the tasks
+ * in order costs only the traversal. Each task is stored with a copy of its sort key
+ * taken when it was inserted, so it can still be found and moved after marking or
+ * unmarking changes the key. Tasks with equal keys keep the order they were added in.
+ * </p>
+ * <p>
+ * The entries are also kept in list order in a {@link PositionTree}, which finds the
+ * entry at a list index and the list number of an entry in O(log n), so the tasks can
+ * be shown with their list numbers without renumbering anything when the list changes.
+ * </p>
+ */
+public class SortedView implements TaskListener, Iterable<Task> {
+
+    /**
+     * A task together with the key it is currently filed under and its place in the list.
+     */
+    private static class Entry {
+        private final Task task;
+        private final Comparable<Object> key;
+        private final long sequence;
+        private PositionTree.Node<Entry> slot;
+
+        private Entry(Task task, Comparable<Object> key, long sequence) {
+            this.task = task;
+            this.key = key;
+            this.sequence = sequence;
+        }
+    }
+
+    private final SortKey sortKey;
+    private final TreeSet<Entry> entries;
+    private final PositionTree<Entry> listOrder = new PositionTree<>();
+    private long nextSequence;
+
+    /**
+     * Constructs a view over the given tasks.
+     *
+     * @param sortKey The order to keep the tasks in.
+     * @param tasks The tasks currently on the list, in list order.
+     */
+    public SortedView(SortKey sortKey, List<Task> tasks) {
+        this.sortKey = sortKey;
+        this.entries = new TreeSet<>((a, b) -> {
+            int byKey = SortKey.KEY_ORDER.compare(a.key, b.key);
+            return byKey != 0 ? byKey : Long.compare(a.sequence, b.sequence);
+        });
+        IndexEvent event = new IndexEvent();
+        event.begin();
+        for (Task task : tasks) {
+            place(listOrder.size(), file(task, nextSequence++));
+        }
+        commit(event, "build");
+    }
+
+    /**
+     * Returns the number of tasks in the view.
+     *
+     * @return The task count.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Iterates over the tasks in sorted order. The view must not be changed while iterating.
+     *
+     * @return An iterator over the tasks.
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        Iterator<Entry> inOrder = Collections.unmodifiableSet(entries).iterator();
+        return new Iterator<Task>() {
+            @Override
+            public boolean hasNext() {
+                return inOrder.hasNext();
+            }
+
+            @Override
+            public Task next() {
+                return inOrder.next().task;
+            }
+        };
+    }
+
+    /**
+     * Iterates over the list positions of the tasks, zero-based, in sorted order.
+     * Each position is worked out in O(log n) as it is reached. The view must not be
+     * changed while iterating.
+     *
+     * @return An iterator over the positions.
+     */
+    public PrimitiveIterator.OfInt positions() {
+        Iterator<Entry> inOrder = Collections.unmodifiableSet(entries).iterator();
+        return new PrimitiveIterator.OfInt() {
+            @Override
+            public boolean hasNext() {
+                return inOrder.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return listOrder.positionOf(inOrder.next().slot);
+            }
+        };
+    }
+
+    @Override
+    public void taskAdded(int index, Task task) {
+        IndexEvent event = new IndexEvent();
+        event.begin();
+        place(index, file(task, nextSequence++));
+        commit(event, "add");
+    }
+
+    @Override
+    public void taskRemoved(int index, Task task) {
+        IndexEvent event = new IndexEvent();
+        event.begin();
+        entries.remove(listOrder.remove(index).getValue());
+        commit(event, "remove");
+    }
+
+    @Override
+    public void taskStatusChanged(int index, Task task) {
+        PositionTree.Node<Entry> slot = listOrder.get(index);
+        Entry entry = slot.getValue();
+        if (SortKey.KEY_ORDER.compare(entry.key, sortKey.keyOf(task)) == 0) {
+            return;
+        }
+        IndexEvent event = new IndexEvent();
+        event.begin();
+        entries.remove(entry);
+        Entry moved = file(task, entry.sequence);
+        moved.slot = slot;
+        slot.setValue(moved);
+        commit(event, "update");
+    }
+
+    private Entry file(Task task, long sequence) {
+        Entry entry = new Entry(task, sortKey.keyOf(task), sequence);
+        entries.add(entry);
+        return entry;
+    }
+
+    private void place(int index, Entry entry) {
+        entry.slot = listOrder.insert(index, entry);
+    }
+
+    private void commit(IndexEvent event, String operation) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.index = "sorted-" + sortKey.name().toLowerCase();
+            event.operation = operation;
+            event.entries = entries.size();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package buddy.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event covering the processing of one user command.
+ * <p>
+ * The event spans parsing, updating the task list, saving and printing the reply,
+ * so a slow command shows up as one long bar in JDK Mission Control.
+ * </p>
+ */
+@Name("buddy.Command")
+@Label("Command")
+@Category("Buddy")
+@Description("Processing of a single user command")
+public class CommandEvent extends Event {
+    @Label("Command Word")
+    public String command;
+
+    @Label("Succeeded")
+    @Description("False if the command was rejected with an error message")
+    public boolean succeeded;
+}
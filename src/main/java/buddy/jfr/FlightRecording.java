@@ -0,0 +1,62 @@
+package buddy.jfr;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Starts and stops a Java Flight Recorder recording for a Buddy session.
+ * <p>
+ * The recording uses the JDK's bundled <code>profile</code> settings, which sample
+ * allocations, file I/O and method hot spots, and additionally enables all of
+ * Buddy's own events without a duration threshold.
+ * </p>
+ */
+public class FlightRecording {
+    private static final String PROFILE = "profile";
+
+    private final Recording recording;
+
+    private FlightRecording(Recording recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Starts a new recording that is written to the given file when it is stopped.
+     *
+     * @param destination The <code>.jfr</code> file to write.
+     * @return The running recording.
+     * @throws IOException If the profile cannot be read or the destination is not writable.
+     */
+    public static FlightRecording start(Path destination) throws IOException {
+        Recording recording;
+        try {
+            recording = new Recording(Configuration.getConfiguration(PROFILE));
+        } catch (ParseException e) {
+            throw new IOException("Invalid JFR profile: " + e.getMessage(), e);
+        }
+        recording.setName("Buddy");
+        recording.enable(CommandEvent.class).withoutThreshold();
+        recording.enable(StorageEvent.class).withoutThreshold();
+        recording.enable(IndexEvent.class).withoutThreshold();
+        recording.setDestination(destination);
+        recording.setToDisk(true);
+        recording.start();
+        return new FlightRecording(recording);
+    }
+
+    /**
+     * Stops the recording and writes it to its destination file.
+     *
+     * @return The file the recording was written to.
+     */
+    public Path stop() {
+        Path destination = recording.getDestination();
+        recording.stop();
+        recording.close();
+        return destination;
+    }
+}
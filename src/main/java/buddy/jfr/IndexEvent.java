@@ -0,0 +1,27 @@
+package buddy.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event covering one update or rebuild of a task index.
+ */
+@Name("buddy.Index")
+@Label("Index Maintenance")
+@Category("Buddy")
+@Description("Building or updating an index over the task list")
+public class IndexEvent extends Event {
+    @Label("Index")
+    public String index;
+
+    @Label("Operation")
+    @Description("build, add, remove, update or rebuild")
+    public String operation;
+
+    @Label("Entries")
+    @Description("Number of entries in the index after the operation")
+    public int entries;
+}
@@ -0,0 +1,31 @@
+package buddy.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event covering one read or write of the save file.
+ */
+@Name("buddy.Storage")
+@Label("Storage Access")
+@Category("Buddy")
+@Description("Loading or saving the task file")
+public class StorageEvent extends Event {
+    @Label("Operation")
+    @Description("Either load or save")
+    public String operation;
+
+    @Label("File")
+    public String path;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Task Count")
+    public int taskCount;
+}
@@ -0,0 +1,100 @@
+package buddy.metrics;
+
+/**
+ * Records latency samples in a fixed number of log-linear buckets.
+ * <p>
+ * Like HdrHistogram, every power-of-two range is split into 16 equal sub-buckets,
+ * so any value is reported to within about 6% while the whole histogram stays
+ * a single array of 960 counters, no matter how many samples are recorded.
+ * </p>
+ */
+public class LatencyHistogram {
+    private static final int LINEAR_BUCKETS = 32;
+    private static final int SUB_BUCKETS = 16;
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + 58 * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+    private long sum;
+    private long max;
+
+    /**
+     * Adds a single sample to the histogram.
+     *
+     * @param value The measured value, usually in nanoseconds. Negative values count as zero.
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts[bucketIndex(v)]++;
+        totalCount++;
+        sum += v;
+        max = Math.max(max, v);
+    }
+
+    /**
+     * Returns the number of samples recorded so far.
+     *
+     * @return The sample count.
+     */
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the largest sample recorded so far.
+     *
+     * @return The exact maximum value, or 0 if nothing was recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the arithmetic mean of all recorded samples.
+     *
+     * @return The mean value, or 0 if nothing was recorded.
+     */
+    public long getMean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    /**
+     * Returns an estimate of the value below which the given share of samples fall.
+     *
+     * @param percentile The percentile to look up, between 0 and 100.
+     * @return The upper bound of the bucket holding that percentile, capped at the maximum.
+     */
+    public long getPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(totalCount * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - 4;
+        int subBucket = (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
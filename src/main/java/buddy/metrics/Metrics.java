@@ -0,0 +1,325 @@
+package buddy.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects timing and volume statistics for a Buddy session.
+ * <p>
+ * Each command is split into phases (parsing, working on the task list, saving and
+ * rendering) that are timed separately, alongside per-command counters and the
+ * amount of data loaded and written. The numbers can be shown with the
+ * <code>stats</code> command or dumped periodically to a metrics file.
+ * </p>
+ */
+public class Metrics {
+    /**
+     * The stages a command passes through while it is being processed.
+     */
+    public enum Phase {
+        PARSE, EXECUTE, SAVE, RENDER, COMMAND
+    }
+
+    private static final long NANOS_PER_MICRO = 1_000L;
+
+    private final EnumMap<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+    private final TreeMap<String, LatencyHistogram> commands = new TreeMap<>();
+    private final TreeMap<String, Long> commandErrors = new TreeMap<>();
+    private final TreeMap<String, Long> gauges = new TreeMap<>();
+    private long bytesWritten;
+    private long saveCount;
+    private long tasksLoaded;
+    private final HashMap<Long, Long> allocatedByThread = new HashMap<>();
+    private ScheduledExecutorService dumper;
+
+    /**
+     * Initializes an empty set of metrics with one histogram per phase.
+     */
+    public Metrics() {
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Returns the current time to be used as the start of a measurement.
+     *
+     * @return A monotonic timestamp in nanoseconds.
+     */
+    public long startTimer() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the time spent in a phase since the given start.
+     * <p>
+     * The returned timestamp can be passed straight back in as the start of the next phase.
+     * </p>
+     *
+     * @param phase The phase that just finished.
+     * @param start The timestamp taken when the phase began.
+     * @return The timestamp at which the phase ended.
+     */
+    public long recordPhase(Phase phase, long start) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            phases.get(phase).record(now - start);
+        }
+        return now;
+    }
+
+    /**
+     * Records one finished command and its total processing time, whether it succeeded
+     * or not. Failed commands are also counted separately.
+     *
+     * @param commandWord The command word, e.g. "todo".
+     * @param start The timestamp taken when the command was received.
+     * @param succeeded Whether the command completed without an error.
+     */
+    public void recordCommand(String commandWord, long start, boolean succeeded) {
+        long elapsed = System.nanoTime() - start;
+        synchronized (this) {
+            phases.get(Phase.COMMAND).record(elapsed);
+            commands.computeIfAbsent(commandWord, k -> new LatencyHistogram()).record(elapsed);
+            if (!succeeded) {
+                commandErrors.merge(commandWord, 1L, Long::sum);
+            }
+        }
+    }
+
+    /**
+     * Records that the save file was rewritten.
+     *
+     * @param bytes The number of bytes written to disk.
+     */
+    public synchronized void recordSave(long bytes) {
+        saveCount++;
+        bytesWritten += bytes;
+    }
+
+    /**
+     * Records how many tasks were read from the save file at startup.
+     *
+     * @param count The number of loaded tasks.
+     */
+    public synchronized void recordTasksLoaded(long count) {
+        tasksLoaded = count;
+    }
+
+    /**
+     * Sets a named value that is reported as-is, such as a queue length or a one-off timing.
+     *
+     * @param name The gauge name in lower snake case.
+     * @param value The current value.
+     */
+    public synchronized void setGauge(String name, long value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Remembers the heap memory allocated so far by the calling thread, so it still counts
+     * towards the session total after the thread has finished. Worker threads call this
+     * once, just before they finish.
+     */
+    public synchronized void recordThreadAllocation() {
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        if (threads != null) {
+            long id = Thread.currentThread().getId();
+            remember(id, threads.getThreadAllocatedBytes(id));
+        }
+    }
+
+    /**
+     * Sets the <code>allocated_bytes</code> gauge to the heap memory allocated by every thread,
+     * such as the fork-join workers that split up large lists, as last seen. Threads still
+     * running are read now; threads that have finished count with the amount they had when
+     * last read or when they reported in. Does nothing on JVMs that cannot measure allocation
+     * per thread.
+     */
+    public synchronized void updateAllocatedBytes() {
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        if (threads == null) {
+            return;
+        }
+        long[] ids = threads.getAllThreadIds();
+        long[] allocated = threads.getThreadAllocatedBytes(ids);
+        for (int i = 0; i < ids.length; i++) {
+            remember(ids[i], allocated[i]);
+        }
+        long total = 0;
+        for (long bytes : allocatedByThread.values()) {
+            total += bytes;
+        }
+        gauges.put("allocated_bytes", total);
+    }
+
+    private void remember(long threadId, long allocated) {
+        if (allocated >= 0) {
+            allocatedByThread.merge(threadId, allocated, Math::max);
+        }
+    }
+
+    /**
+     * Builds a human-readable summary of all metrics, one entry per line.
+     *
+     * @return The formatted report.
+     */
+    public synchronized String formatReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Commands handled:");
+        if (commands.isEmpty()) {
+            sb.append(" none yet");
+        }
+        for (Map.Entry<String, LatencyHistogram> e : commands.entrySet()) {
+            sb.append(' ').append(e.getKey()).append('=').append(e.getValue().getCount());
+        }
+        sb.append(System.lineSeparator());
+        sb.append("Commands failed:");
+        if (commandErrors.isEmpty()) {
+            sb.append(" none");
+        }
+        for (Map.Entry<String, Long> e : commandErrors.entrySet()) {
+            sb.append(' ').append(e.getKey()).append('=').append(e.getValue());
+        }
+        sb.append(System.lineSeparator());
+        sb.append(String.format("%-8s %8s %10s %10s %10s %10s", "phase", "count", "p50(us)", "p90(us)",
+                "p99(us)", "max(us)"));
+        for (Map.Entry<Phase, LatencyHistogram> e : phases.entrySet()) {
+            LatencyHistogram h = e.getValue();
+            sb.append(System.lineSeparator());
+            sb.append(String.format("%-8s %8d %10d %10d %10d %10d", e.getKey().name().toLowerCase(),
+                    h.getCount(), toMicros(h.getPercentile(50)), toMicros(h.getPercentile(90)),
+                    toMicros(h.getPercentile(99)), toMicros(h.getMax())));
+        }
+        sb.append(System.lineSeparator());
+        sb.append("Tasks loaded: ").append(tasksLoaded)
+                .append(", saves: ").append(saveCount)
+                .append(", bytes written: ").append(bytesWritten);
+        for (Map.Entry<String, Long> e : gauges.entrySet()) {
+            sb.append(System.lineSeparator()).append(e.getKey()).append(": ").append(e.getValue());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Builds a machine-readable snapshot of all metrics in the Prometheus text format.
+     *
+     * @return The metrics, one sample per line.
+     */
+    public synchronized String formatForScraping() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, LatencyHistogram> e : commands.entrySet()) {
+            appendSample(sb, "buddy_commands_total{command=\"" + e.getKey() + "\"}", e.getValue().getCount());
+        }
+        for (Map.Entry<String, Long> e : commandErrors.entrySet()) {
+            appendSample(sb, "buddy_command_errors_total{command=\"" + e.getKey() + "\"}", e.getValue());
+        }
+        for (Map.Entry<Phase, LatencyHistogram> e : phases.entrySet()) {
+            String phase = e.getKey().name().toLowerCase();
+            LatencyHistogram h = e.getValue();
+            appendSample(sb, "buddy_phase_count{phase=\"" + phase + "\"}", h.getCount());
+            appendSample(sb, "buddy_phase_mean_nanos{phase=\"" + phase + "\"}", h.getMean());
+            appendSample(sb, "buddy_phase_nanos{phase=\"" + phase + "\",quantile=\"0.5\"}", h.getPercentile(50));
+            appendSample(sb, "buddy_phase_nanos{phase=\"" + phase + "\",quantile=\"0.9\"}", h.getPercentile(90));
+            appendSample(sb, "buddy_phase_nanos{phase=\"" + phase + "\",quantile=\"0.99\"}", h.getPercentile(99));
+            appendSample(sb, "buddy_phase_nanos{phase=\"" + phase + "\",quantile=\"1.0\"}", h.getMax());
+        }
+        appendSample(sb, "buddy_tasks_loaded", tasksLoaded);
+        appendSample(sb, "buddy_saves_total", saveCount);
+        appendSample(sb, "buddy_bytes_written_total", bytesWritten);
+        for (Map.Entry<String, Long> e : gauges.entrySet()) {
+            appendSample(sb, "buddy_" + e.getKey(), e.getValue());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the scrape-friendly snapshot to a file.
+     * <p>
+     * The snapshot is written to a temporary file first and then moved into place,
+     * so a reader never sees a half-written file.
+     * </p>
+     *
+     * @param file The metrics file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void dumpTo(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, formatForScraping().getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Starts dumping the metrics to a file at a fixed interval on a background thread.
+     *
+     * @param file The metrics file to write.
+     * @param intervalSeconds How often to refresh the file.
+     */
+    public synchronized void startPeriodicDump(Path file, long intervalSeconds) {
+        if (dumper != null) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "buddy-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(() -> {
+            try {
+                dumpTo(file);
+            } catch (IOException e) {
+                // A failed dump is retried on the next tick; it must never disturb the session
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the thread bean that measures allocation per thread, or <code>null</code> if
+     * this JVM cannot.
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean hotspotThreads = (com.sun.management.ThreadMXBean) threads;
+        if (!hotspotThreads.isThreadAllocatedMemorySupported() || !hotspotThreads.isThreadAllocatedMemoryEnabled()) {
+            return null;
+        }
+        return hotspotThreads;
+    }
+
+    /**
+     * Stops the periodic dump, if one is running.
+     */
+    public synchronized void stopPeriodicDump() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    private static void appendSample(StringBuilder sb, String name, long value) {
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static long toMicros(long nanos) {
+        return nanos / NANOS_PER_MICRO;
+    }
+}
@@ -0,0 +1,175 @@
+package buddy.parallel;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+/**
+ * Splits work over a range of list positions across the common fork-join pool.
+ * <p>
+ * The range is halved until each piece is small enough to be worth one thread's
+ * attention, each piece is worked on by a {@link Chunk}, and the results are combined
+ * left to right, so the outcome is the same as working through the range in order.
+ * Ranges shorter than the parallel threshold are worked on by the calling thread alone,
+ * since splitting them across cores costs more than it saves. Either way no piece is
+ * longer than 65,536 positions, so a piece's result stays modest in size.
+ * </p>
+ * <p>
+ * Work whose results are used one piece at a time, such as printing, can instead be
+ * handed each piece's result in order as soon as it is ready, with only a few pieces
+ * per core worked on ahead, so the results of the whole range are never held at once.
+ * </p>
+ */
+public final class RangeTasks {
+    /** The default number of positions from which work is split across cores. */
+    public static final int DEFAULT_THRESHOLD = 50_000;
+
+    private static final int MIN_CHUNK_SIZE = 4_096;
+    private static final int MAX_CHUNK_SIZE = 65_536;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static volatile int threshold = DEFAULT_THRESHOLD;
+
+    private RangeTasks() {
+    }
+
+    /**
+     * Work done on one piece of a range.
+     *
+     * @param <R> The type of result of each piece.
+     */
+    @FunctionalInterface
+    public interface Chunk<R> {
+        /**
+         * Works on the positions from <code>from</code>, inclusive, to <code>to</code>, exclusive.
+         *
+         * @param from The first position.
+         * @param to One past the last position.
+         * @return The result for these positions.
+         */
+        R compute(int from, int to);
+    }
+
+    /**
+     * Sets the length from which ranges are split across cores, for the whole process.
+     *
+     * @param positions The smallest range length to split; <code>Integer.MAX_VALUE</code>
+     *         keeps all work on the calling thread.
+     */
+    public static void setThreshold(int positions) {
+        threshold = Math.max(1, positions);
+    }
+
+    /**
+     * Returns the length from which ranges are split across cores.
+     *
+     * @return The parallel threshold.
+     */
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Works on the positions <code>0</code> to <code>size</code>, in parallel if the
+     * range is long enough.
+     *
+     * @param size The length of the range.
+     * @param chunk The work to do on each piece.
+     * @param combine Joins the result of a piece to the result of the piece after it.
+     * @param <R> The type of result.
+     * @return The combined result of every piece, in position order.
+     */
+    public static <R> R compute(int size, Chunk<R> chunk, BinaryOperator<R> combine) {
+        if (size < threshold) {
+            R result = chunk.compute(0, Math.min(size, MAX_CHUNK_SIZE));
+            for (int from = MAX_CHUNK_SIZE; from < size; from += MAX_CHUNK_SIZE) {
+                result = combine.apply(result, chunk.compute(from, Math.min(size, from + MAX_CHUNK_SIZE)));
+            }
+            return result;
+        }
+        int threads = ForkJoinPool.getCommonPoolParallelism();
+        int chunkSize = Math.min(MAX_CHUNK_SIZE,
+                Math.max(MIN_CHUNK_SIZE, size / (threads * CHUNKS_PER_THREAD)));
+        return ForkJoinPool.commonPool().invoke(new Split<>(0, size, chunkSize, chunk, combine));
+    }
+
+    /**
+     * Works on the positions <code>0</code> to <code>size</code>, in parallel if the
+     * range is long enough, handing the result of each piece to <code>action</code> in
+     * position order as soon as it and every piece before it are done.
+     * <p>
+     * At most a few pieces per core are worked on ahead of the one waiting to be handed
+     * over, so the results held at any time stay bounded however long the range is.
+     * </p>
+     *
+     * @param size The length of the range.
+     * @param chunk The work to do on each piece.
+     * @param action What to do with the result of each piece, called on the calling thread.
+     * @param <R> The type of result of each piece.
+     */
+    public static <R> void forEachChunk(int size, Chunk<R> chunk, Consumer<? super R> action) {
+        if (size < threshold) {
+            for (int from = 0; from < size; from += MAX_CHUNK_SIZE) {
+                action.accept(chunk.compute(from, Math.min(size, from + MAX_CHUNK_SIZE)));
+            }
+            return;
+        }
+        int threads = ForkJoinPool.getCommonPoolParallelism();
+        int chunkSize = Math.min(MAX_CHUNK_SIZE,
+                Math.max(MIN_CHUNK_SIZE, size / (threads * CHUNKS_PER_THREAD)));
+        int window = threads * CHUNKS_PER_THREAD;
+        ArrayDeque<ForkJoinTask<R>> pending = new ArrayDeque<>(window);
+        int next = 0;
+        try {
+            while (next < size || !pending.isEmpty()) {
+                while (next < size && pending.size() < window) {
+                    int from = next;
+                    int to = Math.min(size, from + chunkSize);
+                    pending.add(ForkJoinPool.commonPool().submit(() -> chunk.compute(from, to)));
+                    next = to;
+                }
+                action.accept(pending.poll().join());
+            }
+        } finally {
+            for (ForkJoinTask<R> abandoned : pending) {
+                abandoned.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * A piece of the range that splits itself in two until it is small enough.
+     */
+    private static class Split<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+        private final Chunk<R> chunk;
+        private final BinaryOperator<R> combine;
+
+        private Split(int from, int to, int chunkSize, Chunk<R> chunk, BinaryOperator<R> combine) {
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+            this.chunk = chunk;
+            this.combine = combine;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= chunkSize) {
+                return chunk.compute(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            Split<R> left = new Split<>(from, middle, chunkSize, chunk, combine);
+            left.fork();
+            R right = new Split<>(middle, to, chunkSize, chunk, combine).compute();
+            return combine.apply(left.join(), right);
+        }
+    }
+}
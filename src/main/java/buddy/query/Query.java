@@ -0,0 +1,265 @@
+package buddy.query;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import buddy.BuddyException;
+import buddy.task.Deadline;
+import buddy.task.Event;
+import buddy.task.Task;
+import buddy.task.Todo;
+
+/**
+ * A parsed and compiled task query, such as
+ * <code>type=D done=false by&lt;2026-12-01 text~report sort=by limit=50</code>.
+ * <p>
+ * A query is a list of space-separated clauses, all of which must hold. Each clause is
+ * turned into a {@link Predicate} once, when the query is compiled, and the clauses are
+ * chained cheapest first so most tasks are rejected before any text is examined.
+ * Sort keys are likewise chained into a single {@link Comparator}.
+ * </p>
+ * <p>
+ * Supported clauses:
+ * </p>
+ * <ul>
+ * <li><code>type=T|D|E</code> and <code>type!=...</code>: the kind of task.</li>
+ * <li><code>done=true|false</code>: the completion status.</li>
+ * <li><code>by&lt;DATE</code>, with <code>&lt;=</code>, <code>=</code>, <code>&gt;=</code> or
+ *     <code>&gt;</code>: the due date of deadlines; other tasks never match.</li>
+ * <li><code>text=WORD</code>: descriptions containing <code>WORD</code>, ignoring case.</li>
+ * <li><code>text~WORD</code>: descriptions with a word within a few typos of <code>WORD</code>.</li>
+ * <li><code>sort=KEY[,KEY...]</code>: orders the results, see {@link SortKey}; a leading
+ *     <code>-</code> reverses a key.</li>
+ * <li><code>limit=N</code>: keeps only the first <code>N</code> results.</li>
+ * </ul>
+ */
+public class Query {
+    private static final Pattern CLAUSE = Pattern.compile("([a-z]+)(<=|>=|!=|<|>|=|~)(.+)");
+
+    private final Predicate<Task> filter;
+    private final Comparator<Task> order;
+    private final int limit;
+    private final String fuzzyText;
+    private final SortKey viewOrder;
+
+    private Query(Predicate<Task> filter, Comparator<Task> order, int limit, String fuzzyText,
+            SortKey viewOrder) {
+        this.filter = filter;
+        this.order = order;
+        this.limit = limit;
+        this.fuzzyText = fuzzyText;
+        this.viewOrder = viewOrder;
+    }
+
+    /**
+     * Returns the predicate every result must satisfy. It does not include
+     * <code>text~</code> clauses, which are answered by the fuzzy index.
+     *
+     * @return The compiled filter.
+     */
+    public Predicate<Task> getFilter() {
+        return filter;
+    }
+
+    /**
+     * Returns the order the results should be in.
+     *
+     * @return The compiled comparator, or {@code null} to keep list order.
+     */
+    public Comparator<Task> getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns the maximum number of results.
+     *
+     * @return The limit, or -1 for no limit.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the words of every <code>text~</code> clause, which results must fuzzily match.
+     *
+     * @return The words separated by spaces, or {@code null} if there were no such clauses.
+     */
+    public String getFuzzyText() {
+        return fuzzyText;
+    }
+
+    /**
+     * Returns the sort key when the query sorts by exactly one key in ascending order,
+     * which a sorted view of the list can answer without sorting.
+     *
+     * @return The single sort key, or {@code null} if the order is absent or more complex.
+     */
+    public SortKey getViewOrder() {
+        return viewOrder;
+    }
+
+    /**
+     * Parses and compiles a query.
+     *
+     * @param text The clauses of the query, separated by spaces.
+     * @return The compiled query.
+     * @throws BuddyException If a clause is not understood.
+     */
+    public static Query compile(String text) throws BuddyException {
+        ArrayList<Predicate<Task>> cheap = new ArrayList<>();
+        ArrayList<Predicate<Task>> costly = new ArrayList<>();
+        Comparator<Task> order = null;
+        int limit = -1;
+        StringBuilder fuzzyText = null;
+        SortKey viewOrder = null;
+
+        for (String clause : text.trim().split("\\s+")) {
+            Matcher matcher = CLAUSE.matcher(clause);
+            if (!matcher.matches()) {
+                throw new BuddyException("I can't make sense of '" + clause + "'! Clauses look like field=value.");
+            }
+            String field = matcher.group(1);
+            String op = matcher.group(2);
+            String value = matcher.group(3);
+            switch (field) {
+            case "type":
+                cheap.add(compileType(op, value, clause));
+                break;
+            case "done":
+                cheap.add(compileDone(op, value, clause));
+                break;
+            case "by":
+                cheap.add(compileBy(op, value, clause));
+                break;
+            case "text":
+                if (op.equals("~")) {
+                    fuzzyText = fuzzyText == null ? new StringBuilder(value) : fuzzyText.append(' ').append(value);
+                } else {
+                    requireOperator(op, "=", clause);
+                    String keyword = value.toLowerCase();
+                    costly.add(task -> task.getDescription().toLowerCase().contains(keyword));
+                }
+                break;
+            case "sort":
+                requireOperator(op, "=", clause);
+                order = compileSort(value);
+                viewOrder = value.matches("[A-Za-z]+") ? SortKey.parse(value) : null;
+                break;
+            case "limit":
+                requireOperator(op, "=", clause);
+                limit = parseLimit(value);
+                break;
+            default:
+                throw new BuddyException("I don't know the field '" + field
+                        + "'... Try 'type', 'done', 'by', 'text', 'sort' or 'limit'!");
+            }
+        }
+
+        cheap.addAll(costly);
+        Predicate<Task> filter = task -> true;
+        for (Predicate<Task> clause : cheap) {
+            filter = filter.and(clause);
+        }
+        return new Query(filter, order, limit, fuzzyText == null ? null : fuzzyText.toString(), viewOrder);
+    }
+
+    private static Predicate<Task> compileType(String op, String value, String clause) throws BuddyException {
+        Class<? extends Task> type;
+        switch (value.toUpperCase()) {
+        case "T":
+            type = Todo.class;
+            break;
+        case "D":
+            type = Deadline.class;
+            break;
+        case "E":
+            type = Event.class;
+            break;
+        default:
+            throw new BuddyException("Task types are T, D or E, not '" + value + "'!");
+        }
+        Predicate<Task> isType = type::isInstance;
+        if (op.equals("!=")) {
+            return isType.negate();
+        }
+        requireOperator(op, "=", clause);
+        return isType;
+    }
+
+    private static Predicate<Task> compileDone(String op, String value, String clause) throws BuddyException {
+        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+            throw new BuddyException("'done' can only be true or false, not '" + value + "'!");
+        }
+        boolean wanted = Boolean.parseBoolean(value) ^ op.equals("!=");
+        if (!op.equals("!=")) {
+            requireOperator(op, "=", clause);
+        }
+        return task -> task.isDone() == wanted;
+    }
+
+    private static Predicate<Task> compileBy(String op, String value, String clause) throws BuddyException {
+        LocalDate date;
+        try {
+            date = LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BuddyException("Dates in queries must be yyyy-mm-dd! I got '" + value + "'.");
+        }
+        Predicate<LocalDate> test;
+        switch (op) {
+        case "<":
+            test = by -> by.isBefore(date);
+            break;
+        case "<=":
+            test = by -> !by.isAfter(date);
+            break;
+        case ">":
+            test = by -> by.isAfter(date);
+            break;
+        case ">=":
+            test = by -> !by.isBefore(date);
+            break;
+        case "=":
+            test = by -> by.isEqual(date);
+            break;
+        default:
+            throw new BuddyException("I can't use '" + op + "' in '" + clause + "'!");
+        }
+        return task -> task instanceof Deadline && test.test(((Deadline) task).getBy());
+    }
+
+    private static Comparator<Task> compileSort(String value) throws BuddyException {
+        Comparator<Task> order = null;
+        for (String name : value.split(",")) {
+            boolean isReversed = name.startsWith("-");
+            Comparator<Task> key = SortKey.parse(isReversed ? name.substring(1) : name).comparator();
+            if (isReversed) {
+                key = key.reversed();
+            }
+            order = order == null ? key : order.thenComparing(key);
+        }
+        return order;
+    }
+
+    private static int parseLimit(String value) throws BuddyException {
+        try {
+            int limit = Integer.parseInt(value);
+            if (limit > 0) {
+                return limit;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below together with non-positive limits
+        }
+        throw new BuddyException("The limit has to be a positive number, not '" + value + "'!");
+    }
+
+    private static void requireOperator(String op, String expected, String clause) throws BuddyException {
+        if (!op.equals(expected)) {
+            throw new BuddyException("I can't use '" + op + "' in '" + clause + "'!");
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package buddy.query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import buddy.TaskList;
+import buddy.index.SortedView;
+import buddy.parallel.RangeTasks;
+import buddy.task.Task;
+
+/**
+ * Runs compiled {@link Query} objects against a task list.
+ * <p>
+ * When a query has <code>text~</code> clauses, the fuzzy word index narrows the list
+ * down to candidates before any other clause is checked. A query sorted by a single
+ * ascending key walks the list's sorted view for that key instead of sorting, unless
+ * the list is kept off the heap and so has no sorted views.
+ * Otherwise every task is checked, in parallel once the list is large enough to make
+ * that worthwhile.
+ * A <code>limit</code> is pushed into the scan: unsorted queries stop at the limit,
+ * and sorted ones keep only the best results in a bounded heap instead of sorting
+ * every match.
+ * </p>
+ */
+public class QueryEngine {
+    private final int fuzzyDistance;
+
+    /**
+     * Constructs an engine.
+     *
+     * @param fuzzyDistance The number of typos per word allowed by <code>text~</code> clauses.
+     */
+    public QueryEngine(int fuzzyDistance) {
+        this.fuzzyDistance = fuzzyDistance;
+    }
+
+    /**
+     * Finds the tasks selected by a query.
+     *
+     * @param query The compiled query.
+     * @param tasks The list to search.
+     * @return The matching tasks, in the query's order or else in list order.
+     */
+    public ArrayList<Task> run(Query query, TaskList tasks) {
+        Predicate<Task> filter = query.getFilter();
+        Comparator<Task> order = query.getOrder();
+        int limit = query.getLimit();
+
+        List<Task> candidates;
+        if (query.getFuzzyText() != null) {
+            candidates = tasks.findTasksFuzzy(query.getFuzzyText(), fuzzyDistance);
+        } else if (query.getViewOrder() != null && !tasks.isOffHeap()) {
+            return scan(tasks.getSortedView(query.getViewOrder()), filter, limit);
+        } else {
+            candidates = tasks.getAllTasks();
+        }
+
+        if (order == null) {
+            return scan(candidates, filter, limit);
+        }
+        if (limit < 0) {
+            ArrayList<Task> matches = scan(candidates, filter, -1);
+            matches.sort(order);
+            return matches;
+        }
+        if (candidates.size() >= RangeTasks.getThreshold()) {
+            return topK(scan(candidates, filter, -1), task -> true, order, limit);
+        }
+        return topK(candidates, filter, order, limit);
+    }
+
+    /**
+     * Collects the tasks of a sorted view that pass the filter, in the view's order,
+     * stopping after <code>limit</code> of them unless the limit is negative.
+     */
+    private static ArrayList<Task> scan(SortedView view, Predicate<Task> filter, int limit) {
+        ArrayList<Task> matches = new ArrayList<>();
+        for (Task task : view) {
+            if (limit >= 0 && matches.size() >= limit) {
+                break;
+            }
+            if (filter.test(task)) {
+                matches.add(task);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Collects the tasks that pass the filter, in order, stopping after <code>limit</code>
+     * of them unless the limit is negative.
+     */
+    private static ArrayList<Task> scan(List<Task> candidates, Predicate<Task> filter, int limit) {
+        if (candidates.size() >= RangeTasks.getThreshold()) {
+            return candidates.parallelStream()
+                    .filter(filter)
+                    .limit(limit < 0 ? Long.MAX_VALUE : limit)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+        ArrayList<Task> matches = new ArrayList<>();
+        for (Task task : candidates) {
+            if (limit >= 0 && matches.size() >= limit) {
+                break;
+            }
+            if (filter.test(task)) {
+                matches.add(task);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Keeps the first <code>k</code> matches by the given order in a heap of at most
+     * <code>k</code> entries, whose root is the worst match kept so far. Ties are broken
+     * by position among the candidates so the result is the same as a stable sort.
+     */
+    private static ArrayList<Task> topK(List<Task> candidates, Predicate<Task> filter,
+            Comparator<Task> order, int k) {
+        Comparator<Ranked> byRank = Comparator.comparing((Ranked r) -> r.task, order)
+                .thenComparingInt(r -> r.position);
+        PriorityQueue<Ranked> heap = new PriorityQueue<>(k + 1, byRank.reversed());
+        int position = 0;
+        for (Task task : candidates) {
+            if (filter.test(task)) {
+                Ranked ranked = new Ranked(task, position);
+                if (heap.size() < k) {
+                    heap.add(ranked);
+                } else if (byRank.compare(ranked, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(ranked);
+                }
+            }
+            position++;
+        }
+        ArrayList<Ranked> kept = new ArrayList<>(heap);
+        kept.sort(byRank);
+        ArrayList<Task> results = new ArrayList<>(kept.size());
+        for (Ranked ranked : kept) {
+            results.add(ranked.task);
+        }
+        return results;
+    }
+
+    /**
+     * A matching task and where it was among the candidates.
+     */
+    private static class Ranked {
+        private final Task task;
+        private final int position;
+
+        private Ranked(Task task, int position) {
+            this.task = task;
+            this.position = position;
+        }
+    }
+}
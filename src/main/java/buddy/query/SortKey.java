@@ -0,0 +1,71 @@
+package buddy.query;
+
+import java.util.Comparator;
+import java.util.function.Function;
+
+import buddy.BuddyException;
+import buddy.task.Deadline;
+import buddy.task.Task;
+
+/**
+ * The orders tasks can be sorted in.
+ * <p>
+ * Each order compares a single key taken from the task, so the key can be saved
+ * alongside the task by structures such as sorted views that must still find the
+ * task after it changes.
+ * </p>
+ */
+public enum SortKey {
+    /** Deadlines by due date, earliest first, followed by every other task. */
+    BY(task -> task instanceof Deadline ? ((Deadline) task).getBy() : null),
+    /** Tasks that are not done before tasks that are. */
+    STATUS(Task::isDone),
+    /** Tasks by description, ignoring case. */
+    NAME(task -> task.getDescription().toLowerCase());
+
+    /** Orders keys naturally, with tasks that have no key last. */
+    public static final Comparator<Comparable<Object>> KEY_ORDER =
+            Comparator.nullsLast(Comparator.naturalOrder());
+
+    private final Function<Task, Comparable<?>> extractor;
+
+    SortKey(Function<Task, Comparable<?>> extractor) {
+        this.extractor = extractor;
+    }
+
+    /**
+     * Returns the value this order compares a task by.
+     *
+     * @param task The task.
+     * @return The key, or {@code null} if the task has none and sorts last.
+     */
+    @SuppressWarnings("unchecked")
+    public Comparable<Object> keyOf(Task task) {
+        return (Comparable<Object>) extractor.apply(task);
+    }
+
+    /**
+     * Returns the comparator that puts tasks in this order.
+     *
+     * @return The comparator.
+     */
+    public Comparator<Task> comparator() {
+        return (a, b) -> KEY_ORDER.compare(keyOf(a), keyOf(b));
+    }
+
+    /**
+     * Looks up a sort key by the name the user types, such as <code>by</code>.
+     *
+     * @param name The name of the order, in any case.
+     * @return The matching key.
+     * @throws BuddyException If there is no order with that name.
+     */
+    public static SortKey parse(String name) throws BuddyException {
+        for (SortKey key : values()) {
+            if (key.name().equalsIgnoreCase(name)) {
+                return key;
+            }
+        }
+        throw new BuddyException("I don't know how to sort by '" + name + "'... Try 'by', 'status' or 'name'!");
+    }
+}
@@ -0,0 +1,169 @@
+package buddy.reminder;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import buddy.TaskListener;
+import buddy.task.Deadline;
+import buddy.task.Task;
+
+/**
+ * Tells the user when deadlines fall due.
+ * <p>
+ * Every open deadline is kept in a {@link TimingWheel} keyed by its due date, and
+ * the wheel is kept current by listening to the task list rather than rescanning it.
+ * A background thread moves the wheel forward as days pass; deadlines that fall due,
+ * or that are already due or overdue when they are added, are queued until Buddy
+ * next asks for them between commands.
+ * </p>
+ */
+public class ReminderService implements TaskListener {
+    private static final long CHECK_INTERVAL_SECONDS = 60;
+
+    private final Clock clock;
+    private final TimingWheel<Deadline> wheel;
+    private final LinkedHashSet<Deadline> pending = new LinkedHashSet<>();
+    private ScheduledExecutorService ticker;
+
+    /**
+     * Constructs a reminder service that uses the system clock.
+     */
+    public ReminderService() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a reminder service that uses the given clock to decide what day it is.
+     *
+     * @param clock The clock to read the current date from.
+     */
+    public ReminderService(Clock clock) {
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(LocalDate.now(clock).toEpochDay());
+    }
+
+    /**
+     * Schedules reminders for every open deadline in a list that was loaded before
+     * this service started listening to it.
+     *
+     * @param tasks The tasks already on the list.
+     */
+    public synchronized void scheduleAll(List<Task> tasks) {
+        for (Task task : tasks) {
+            schedule(task);
+        }
+    }
+
+    /**
+     * Drops the reminders for every task in a list that is no longer being listened to.
+     *
+     * @param tasks The tasks to forget.
+     */
+    public synchronized void unscheduleAll(List<Task> tasks) {
+        for (Task task : tasks) {
+            unschedule(task);
+        }
+    }
+
+    /**
+     * Starts the background thread that checks once a minute whether the date has changed.
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "buddy-reminders");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::advance, CHECK_INTERVAL_SECONDS, CHECK_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the background thread, if it is running.
+     */
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    /**
+     * Returns the deadlines that have fallen due since the last call, and forgets them.
+     *
+     * @return The due and overdue deadlines, in the order they fell due.
+     */
+    public synchronized ArrayList<Deadline> takeDueReminders() {
+        advance();
+        ArrayList<Deadline> due = new ArrayList<>(pending);
+        pending.clear();
+        return due;
+    }
+
+    /**
+     * Returns today's date according to this service's clock.
+     *
+     * @return The current date.
+     */
+    public LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    /**
+     * Returns the number of open deadlines that are not yet due.
+     *
+     * @return The scheduled reminder count.
+     */
+    public synchronized int scheduledCount() {
+        return wheel.size();
+    }
+
+    @Override
+    public synchronized void taskAdded(int index, Task task) {
+        schedule(task);
+    }
+
+    @Override
+    public synchronized void taskRemoved(int index, Task task) {
+        unschedule(task);
+    }
+
+    @Override
+    public synchronized void taskStatusChanged(int index, Task task) {
+        if (task.isDone()) {
+            unschedule(task);
+        } else {
+            schedule(task);
+        }
+    }
+
+    private synchronized void advance() {
+        pending.addAll(wheel.advanceTo(today().toEpochDay()));
+    }
+
+    private void schedule(Task task) {
+        if (!(task instanceof Deadline) || task.isDone()) {
+            return;
+        }
+        Deadline deadline = (Deadline) task;
+        if (!wheel.schedule(deadline, deadline.getBy().toEpochDay())) {
+            pending.add(deadline);
+        }
+    }
+
+    private void unschedule(Task task) {
+        if (task instanceof Deadline) {
+            wheel.cancel((Deadline) task);
+            pending.remove(task);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package buddy.reminder;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * A hierarchical timing wheel that tells when scheduled items become due.
+ * <p>
+ * Time is measured in whole ticks. The wheel has four levels of 64 slots each:
+ * level 0 holds items due within the current 64-tick block, one slot per tick,
+ * level 1 holds items due within the current 4096-tick block, one slot per 64 ticks,
+ * and so on. When time enters a slot of a higher level, its items are moved down
+ * to the levels below ("cascaded"). Scheduling and cancelling are O(1), and each
+ * item is moved at most once per level, so advancing time never rescans all items.
+ * Items due beyond the top level wait in an overflow set until the top level wraps.
+ * </p>
+ * <p>
+ * Items are matched by identity. This class is not thread-safe.
+ * </p>
+ *
+ * @param <T> The type of the scheduled items.
+ */
+public class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    /**
+     * Where a scheduled item is and when it is due.
+     */
+    private static class Entry<T> {
+        private final long dueTick;
+        private LinkedHashSet<T> bucket;
+
+        private Entry(long dueTick) {
+            this.dueTick = dueTick;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final LinkedHashSet<T>[][] slots = new LinkedHashSet[LEVELS][SLOTS];
+    private final LinkedHashSet<T> overflow = new LinkedHashSet<>();
+    private final IdentityHashMap<T, Entry<T>> entries = new IdentityHashMap<>();
+    private long currentTick;
+
+    /**
+     * Constructs an empty wheel whose clock starts at the given tick.
+     *
+     * @param startTick The current time in ticks.
+     */
+    public TimingWheel(long startTick) {
+        this.currentTick = startTick;
+    }
+
+    /**
+     * Returns the wheel's current time.
+     *
+     * @return The current tick.
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Returns the number of items waiting to become due.
+     *
+     * @return The scheduled item count.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Schedules an item to become due at the given tick, replacing any earlier schedule for it.
+     *
+     * @param item The item to schedule.
+     * @param dueTick The tick at which the item becomes due.
+     * @return {@code false} if the tick is not in the future, in which case the item is not stored.
+     */
+    public boolean schedule(T item, long dueTick) {
+        cancel(item);
+        if (dueTick <= currentTick) {
+            return false;
+        }
+        Entry<T> entry = new Entry<>(dueTick);
+        entries.put(item, entry);
+        place(item, entry);
+        return true;
+    }
+
+    /**
+     * Removes an item from the wheel.
+     *
+     * @param item The item to remove.
+     * @return {@code true} if the item was scheduled.
+     */
+    public boolean cancel(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        entry.bucket.remove(item);
+        return true;
+    }
+
+    /**
+     * Moves the clock forward one tick at a time up to the given tick.
+     *
+     * @param tick The new current time. Earlier ticks are ignored.
+     * @return The items that became due, in the order they fell due.
+     */
+    public ArrayList<T> advanceTo(long tick) {
+        ArrayList<T> due = new ArrayList<>();
+        while (currentTick < tick) {
+            currentTick++;
+            cascade();
+            LinkedHashSet<T> bucket = slots[0][(int) (currentTick & SLOT_MASK)];
+            if (bucket == null || bucket.isEmpty()) {
+                continue;
+            }
+            for (T item : bucket) {
+                entries.remove(item);
+                due.add(item);
+            }
+            bucket.clear();
+        }
+        return due;
+    }
+
+    /**
+     * Moves items out of every higher-level slot whose time range has just begun.
+     * Higher levels are emptied first so their items can land in the lower slots
+     * that are emptied next.
+     */
+    private void cascade() {
+        for (int level = LEVELS; level >= 1; level--) {
+            long blockSize = 1L << (SLOT_BITS * level);
+            if (currentTick % blockSize != 0) {
+                continue;
+            }
+            LinkedHashSet<T> bucket = level == LEVELS ? overflow : slots[level][slotIndex(currentTick, level)];
+            if (bucket == null || bucket.isEmpty()) {
+                continue;
+            }
+            ArrayList<T> moved = new ArrayList<>(bucket);
+            bucket.clear();
+            for (T item : moved) {
+                place(item, entries.get(item));
+            }
+        }
+    }
+
+    /**
+     * Puts an item into the lowest level whose current block also contains its due tick.
+     */
+    private void place(T item, Entry<T> entry) {
+        for (int level = 0; level < LEVELS; level++) {
+            int blockBits = SLOT_BITS * (level + 1);
+            if ((entry.dueTick >>> blockBits) == (currentTick >>> blockBits)) {
+                int slot = slotIndex(entry.dueTick, level);
+                if (slots[level][slot] == null) {
+                    slots[level][slot] = new LinkedHashSet<>();
+                }
+                entry.bucket = slots[level][slot];
+                entry.bucket.add(item);
+                return;
+            }
+        }
+        entry.bucket = overflow;
+        overflow.add(item);
+    }
+
+    private static int slotIndex(long tick, int level) {
+        return (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+    }
+}
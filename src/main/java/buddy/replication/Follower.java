@@ -0,0 +1,270 @@
+package buddy.replication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import buddy.BuddyException;
+import buddy.Storage;
+import buddy.TaskList;
+import buddy.metrics.Metrics;
+import buddy.task.Task;
+
+/**
+ * Keeps a read-only copy of a primary Buddy's task list by replaying its {@link ReplicationLog}.
+ * <p>
+ * A background thread polls the log file, applies every complete record it has not
+ * seen yet to a local {@link TaskList}, and reports how far behind the primary it is.
+ * The lag is worked out again on every poll: once everything in the log has been applied
+ * it is the time the latest change took to arrive. While the log holds anything not yet
+ * applied, it is the time since the log's modification time when the follower first
+ * found itself behind, so it keeps growing for as long as the follower is stuck.
+ * When the primary replaces the log with a fresh snapshot, or a record cannot be
+ * applied, the follower starts again from the top of the log.
+ * </p>
+ * <p>
+ * The follower changes its list while holding its own lock, so readers must
+ * synchronize on the follower while they use the list.
+ * </p>
+ */
+public class Follower {
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    private final Path logFile;
+    private final Storage format;
+    private final Metrics metrics;
+    private final TaskList tasks = new TaskList();
+    private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+    private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+    private FileChannel channel;
+    private Object fileKey;
+    private long position;
+    private long lastSequence;
+    private long lastLagMillis;
+    private long behindSince = -1;
+    private String listName = "";
+    private ScheduledExecutorService poller;
+
+    /**
+     * Constructs a follower of the given log.
+     *
+     * @param logFile The log file written by the primary.
+     * @param format The storage whose task format is used in the log.
+     * @param metrics Where to report replication lag.
+     */
+    public Follower(Path logFile, Storage format, Metrics metrics) {
+        this.logFile = logFile;
+        this.format = format;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the local copy of the primary's list. It is the same object for the whole
+     * life of the follower, and is only changed while the follower's lock is held.
+     *
+     * @return The replicated list.
+     */
+    public TaskList getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Returns the name of the list the primary is using.
+     *
+     * @return The list name, or an empty string before the first snapshot arrives.
+     */
+    public synchronized String getListName() {
+        return listName;
+    }
+
+    /**
+     * Applies what is already in the log and starts polling it in the background.
+     */
+    public synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        poll();
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "buddy-follower");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(this::poll, POLL_INTERVAL_MILLIS, POLL_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling and closes the log file.
+     */
+    public synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+        closeChannel();
+    }
+
+    /**
+     * Applies every complete record added to the log since the last poll.
+     */
+    public synchronized void poll() {
+        BasicFileAttributes log;
+        try {
+            log = Files.readAttributes(logFile, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // The primary has not written its first snapshot yet
+            return;
+        } catch (IOException e) {
+            closeChannel();
+            return;
+        }
+        boolean isCaughtUp;
+        try {
+            if (channel == null || !Objects.equals(log.fileKey(), fileKey) || channel.size() < position) {
+                reopen(log.fileKey());
+            }
+            readNewRecords();
+            isCaughtUp = partialLine.size() == 0 && position >= channel.size();
+        } catch (IOException | BuddyException | RuntimeException e) {
+            // Start again from the snapshot at the top of the log on the next poll
+            closeChannel();
+            isCaughtUp = false;
+        }
+        updateLag(isCaughtUp, log.lastModifiedTime().toMillis());
+    }
+
+    /**
+     * Sets the lag gauge after a poll.
+     *
+     * @param isCaughtUp Whether everything in the log has been applied.
+     * @param modifiedAt When the log was last changed, in epoch milliseconds.
+     */
+    private void updateLag(boolean isCaughtUp, long modifiedAt) {
+        if (isCaughtUp) {
+            behindSince = -1;
+            metrics.setGauge("replication_lag_millis", lastLagMillis);
+            return;
+        }
+        if (behindSince < 0) {
+            behindSince = modifiedAt;
+        }
+        metrics.setGauge("replication_lag_millis", Math.max(0, System.currentTimeMillis() - behindSince));
+    }
+
+    private void reopen(Object currentKey) throws IOException {
+        closeChannel();
+        channel = FileChannel.open(logFile, StandardOpenOption.READ);
+        fileKey = currentKey;
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing was written through this channel
+            }
+        }
+        channel = null;
+        fileKey = null;
+        position = 0;
+        partialLine.reset();
+    }
+
+    /**
+     * Reads from the last position to the end of the file, applying each line that is
+     * complete and keeping any trailing partial line until the rest of it arrives.
+     */
+    private void readNewRecords() throws IOException, BuddyException {
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return;
+            }
+            position += read;
+            byte[] bytes = buffer.array();
+            int lineStart = 0;
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '\n') {
+                    partialLine.write(bytes, lineStart, i - lineStart);
+                    apply(partialLine.toString(StandardCharsets.UTF_8.name()).trim());
+                    partialLine.reset();
+                    lineStart = i + 1;
+                }
+            }
+            partialLine.write(bytes, lineStart, read - lineStart);
+        }
+    }
+
+    /**
+     * Applies one record to the local list.
+     *
+     * @throws BuddyException If the record does not fit the list, meaning a record was missed.
+     */
+    private void apply(String record) throws BuddyException {
+        String[] fields = record.split("\\|", 5);
+        if (fields.length < 4) {
+            throw new BuddyException("Bad replication record: " + record);
+        }
+        long sequence = Long.parseLong(fields[0]);
+        long madeAt = Long.parseLong(fields[1]);
+        String op = fields[2];
+        if (op.equals(ReplicationLog.SNAPSHOT)) {
+            tasks.truncate(0);
+            listName = fields[3];
+        } else if (sequence <= lastSequence) {
+            return;
+        } else if (sequence != lastSequence + 1) {
+            throw new BuddyException("Missed replication records before " + sequence);
+        } else {
+            applyChange(op, Integer.parseInt(fields[3]), fields.length > 4 ? fields[4] : "");
+        }
+        lastSequence = sequence;
+        lastLagMillis = Math.max(0, System.currentTimeMillis() - madeAt);
+        metrics.setGauge("replication_sequence", sequence);
+    }
+
+    private void applyChange(String op, int index, String body) throws BuddyException {
+        switch (op) {
+        case ReplicationLog.ADD:
+            Task task;
+            try {
+                task = format.parseTask(body);
+            } catch (DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                task = null;
+            }
+            if (task == null) {
+                throw new BuddyException("Bad replicated task: " + body);
+            }
+            tasks.insert(index, task);
+            break;
+        case ReplicationLog.REMOVE:
+            tasks.remove(index);
+            break;
+        case ReplicationLog.STATUS:
+            if (body.equals("1")) {
+                tasks.markTask(index);
+            } else {
+                tasks.unmarkTask(index);
+            }
+            break;
+        default:
+            throw new BuddyException("Unknown replication record: " + op);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package buddy.replication;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import buddy.BuddyException;
+import buddy.Storage;
+import buddy.TaskList;
+import buddy.TaskListener;
+import buddy.task.Task;
+
+/**
+ * Ships every change to the task list in use to a shared log file that {@link Follower}
+ * processes replay, so they can serve reads without touching the primary's save file.
+ * <p>
+ * Each line of the log is one record: <code>SEQ|MILLIS|OP|...</code>, where
+ * <code>SEQ</code> numbers the records, <code>MILLIS</code> is when the change was made
+ * and <code>OP</code> is one of
+ * </p>
+ * <ul>
+ * <li><code>SNAPSHOT|NAME|COUNT</code>: the list is replaced by the named list, whose
+ *     <code>COUNT</code> tasks follow as <code>ADD</code> records;</li>
+ * <li><code>ADD|INDEX|TASK</code>: a task, in save-file format, is inserted at <code>INDEX</code>;</li>
+ * <li><code>REMOVE|INDEX</code>: the task at <code>INDEX</code> is removed;</li>
+ * <li><code>STATUS|INDEX|0|1</code>: the task at <code>INDEX</code> is unmarked or marked.</li>
+ * </ul>
+ * <p>
+ * Records are buffered and written out by {@link #flush()} once per command. The log
+ * always starts with a snapshot; whenever it grows well past the size of the list it is
+ * replaced, atomically, by a fresh snapshot, which followers notice and reload.
+ * </p>
+ */
+public class ReplicationLog implements TaskListener {
+    static final String SNAPSHOT = "SNAPSHOT";
+    static final String ADD = "ADD";
+    static final String REMOVE = "REMOVE";
+    static final String STATUS = "STATUS";
+    static final String SEPARATOR = "|";
+
+    private static final int COMPACT_FACTOR = 4;
+    private static final int MIN_COMPACT_RECORDS = 1024;
+
+    private final Path logFile;
+    private final Storage format;
+    private BufferedWriter log;
+    private String listName;
+    private TaskList list;
+    private long sequence;
+    private long recordsSinceSnapshot;
+    private IOException failure;
+
+    /**
+     * Constructs a log that will be written to the given file once a list is followed.
+     *
+     * @param logFile The shared log file.
+     * @param format The storage whose task format is used in the log.
+     */
+    public ReplicationLog(Path logFile, Storage format) {
+        this.logFile = logFile;
+        this.format = format;
+    }
+
+    /**
+     * Starts shipping the changes of a list, replacing the log with a snapshot of it.
+     * The list that was followed before, if any, is no longer listened to.
+     *
+     * @param name The name of the list.
+     * @param tasks The list to follow.
+     * @throws BuddyException If the log cannot be written.
+     */
+    public synchronized void follow(String name, TaskList tasks) throws BuddyException {
+        if (list != null) {
+            list.removeListener(this);
+        }
+        listName = name;
+        list = tasks;
+        list.addListener(this);
+        writeSnapshot();
+    }
+
+    /**
+     * Writes out every buffered record, and compacts the log if it has grown too long.
+     * If an earlier record could not be written, a fresh snapshot is written instead so
+     * followers do not miss the change.
+     *
+     * @throws BuddyException If the log could not be written.
+     */
+    public synchronized void flush() throws BuddyException {
+        if (list == null) {
+            return;
+        }
+        try {
+            if (failure != null) {
+                failure = null;
+                compact();
+                return;
+            }
+            log.flush();
+            if (recordsSinceSnapshot > COMPACT_FACTOR * Math.max(list.size(), MIN_COMPACT_RECORDS)) {
+                compact();
+            }
+        } catch (IOException e) {
+            failure = e;
+            throw new BuddyException("Whimper... I couldn't pass your changes on to " + logFile + "!");
+        }
+    }
+
+    /**
+     * Flushes and closes the log file.
+     */
+    public synchronized void close() {
+        if (list != null) {
+            list.removeListener(this);
+        }
+        if (log == null) {
+            return;
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            // Followers simply stop at the last complete record
+        }
+        log = null;
+    }
+
+    @Override
+    public synchronized void taskAdded(int index, Task task) {
+        append(ADD, index + SEPARATOR + format.formatTaskForFile(task));
+    }
+
+    @Override
+    public synchronized void taskRemoved(int index, Task task) {
+        append(REMOVE, String.valueOf(index));
+    }
+
+    @Override
+    public synchronized void taskStatusChanged(int index, Task task) {
+        append(STATUS, index + SEPARATOR + (task.isDone() ? "1" : "0"));
+    }
+
+    private void append(String op, String body) {
+        if (log == null || failure != null) {
+            return;
+        }
+        try {
+            writeRecord(log, op, body);
+            recordsSinceSnapshot++;
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void writeRecord(BufferedWriter writer, String op, String body) throws IOException {
+        writer.write(++sequence + SEPARATOR + System.currentTimeMillis() + SEPARATOR + op + SEPARATOR + body);
+        writer.write('\n');
+    }
+
+    private void writeSnapshot() throws BuddyException {
+        try {
+            compact();
+        } catch (IOException e) {
+            failure = e;
+            throw new BuddyException("Whimper... I couldn't start the replication log at " + logFile + "!");
+        }
+    }
+
+    /**
+     * Replaces the log with a snapshot of the followed list. The snapshot is written to
+     * a temporary file and moved into place, so followers never see half of it.
+     */
+    private void compact() throws IOException {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+        Path parent = logFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = logFile.resolveSibling(logFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            writeRecord(writer, SNAPSHOT, listName + SEPARATOR + list.size());
+            for (int i = 0; i < list.size(); i++) {
+                writeRecord(writer, ADD, i + SEPARATOR + format.formatTaskForFile(list.get(i)));
+            }
+        }
+        Files.move(tmp, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        recordsSinceSnapshot = 0;
+        log = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,305 @@
+package buddy.store;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import buddy.task.Deadline;
+import buddy.task.Event;
+import buddy.task.Task;
+import buddy.task.Todo;
+
+/**
+ * A list of tasks kept outside the Java heap, for task lists of millions of tasks.
+ * <p>
+ * Each task takes one fixed-size slot in a direct {@link ByteBuffer}, holding its type,
+ * status and due date, and where its text starts in an arena of UTF-8 bytes. The arena
+ * is a series of direct buffers that text is only ever appended to; text left behind by
+ * deleted or changed tasks is reclaimed by copying the live text into a fresh arena once
+ * it outweighs the live text. The heap only holds a handful of buffer objects, however
+ * long the list gets, so garbage collection stays quick.
+ * </p>
+ * <p>
+ * {@link #get(int)} builds a new {@link Task} from the slot every time it is called, so
+ * the tasks handed out are copies: changing one has no effect on the list until it is
+ * written back with {@link #set(int, Task)}, and two calls never return the same object.
+ * Reads may run on several threads at once, but changes must not overlap with anything.
+ * </p>
+ */
+public class OffHeapTaskStore extends AbstractList<Task> implements RandomAccess {
+    private static final int SLOT_BYTES = 32;
+    private static final int TYPE = 0;
+    private static final int DONE = 1;
+    private static final int BY = 4;
+    private static final int TEXT = 8;
+    private static final int DESCRIPTION_LENGTH = 16;
+    private static final int FROM_LENGTH = 20;
+    private static final int TO_LENGTH = 24;
+    private static final byte TODO = 'T';
+    private static final byte DEADLINE = 'D';
+    private static final byte EVENT = 'E';
+
+    private static final int INITIAL_SLOTS = 1024;
+    private static final int MAX_SLOTS = Integer.MAX_VALUE / SLOT_BYTES;
+    private static final int ARENA_CHUNK_BYTES = 1 << 20;
+    private static final int MOVE_WINDOW_BYTES = 64 * 1024;
+
+    private ByteBuffer slots = ByteBuffer.allocateDirect(INITIAL_SLOTS * SLOT_BYTES);
+    private ArrayList<ByteBuffer> arena = new ArrayList<>();
+    private int size;
+    private long liveTextBytes;
+    private long deadTextBytes;
+
+    @Override
+    public Task get(int index) {
+        checkIndex(index, size);
+        int slot = index * SLOT_BYTES;
+        int descriptionLength = slots.getInt(slot + DESCRIPTION_LENGTH);
+        int fromLength = slots.getInt(slot + FROM_LENGTH);
+        int toLength = slots.getInt(slot + TO_LENGTH);
+        byte[] text = readText(slots.getLong(slot + TEXT), descriptionLength + fromLength + toLength);
+        String description = new String(text, 0, descriptionLength, StandardCharsets.UTF_8);
+
+        Task task;
+        switch (slots.get(slot + TYPE)) {
+        case DEADLINE:
+            task = new Deadline(description, LocalDate.ofEpochDay(slots.getInt(slot + BY)));
+            break;
+        case EVENT:
+            task = new Event(description,
+                    new String(text, descriptionLength, fromLength, StandardCharsets.UTF_8),
+                    new String(text, descriptionLength + fromLength, toLength, StandardCharsets.UTF_8));
+            break;
+        default:
+            task = new Todo(description);
+            break;
+        }
+        if (slots.get(slot + DONE) != 0) {
+            task.markAsDone();
+        }
+        return task;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Replaces the task at a position. When only the status differs from the stored
+     * task, just the status byte is rewritten.
+     *
+     * @param index The zero-based position.
+     * @param task The new task.
+     * @return The task that was there before.
+     */
+    @Override
+    public Task set(int index, Task task) {
+        Task previous = get(index);
+        int slot = index * SLOT_BYTES;
+        byte[][] parts = encode(task);
+        if (typeOf(task) == slots.get(slot + TYPE) && byOf(task) == slots.getInt(slot + BY)
+                && Arrays.equals(join(parts), readText(slots.getLong(slot + TEXT), textLength(slot)))) {
+            slots.put(slot + DONE, (byte) (task.isDone() ? 1 : 0));
+            return previous;
+        }
+        deadTextBytes += textLength(slot);
+        liveTextBytes -= textLength(slot);
+        writeSlot(slot, task, parts);
+        compactIfWasteful();
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        checkIndex(index, size + 1);
+        ensureCapacity(size + 1);
+        moveSlots(index, index + 1, size - index);
+        writeSlot(index * SLOT_BYTES, task, encode(task));
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task removed = get(index);
+        int slot = index * SLOT_BYTES;
+        deadTextBytes += textLength(slot);
+        liveTextBytes -= textLength(slot);
+        moveSlots(index + 1, index, size - index - 1);
+        size--;
+        modCount++;
+        compactIfWasteful();
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        arena = new ArrayList<>();
+        liveTextBytes = 0;
+        deadTextBytes = 0;
+        modCount++;
+    }
+
+    /**
+     * Returns how many bytes of native memory the store has reserved.
+     *
+     * @return The capacity of the slot buffer and every arena buffer, in bytes.
+     */
+    public long getReservedBytes() {
+        long reserved = slots.capacity();
+        for (ByteBuffer chunk : arena) {
+            reserved += chunk.capacity();
+        }
+        return reserved;
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (bound - 1));
+        }
+    }
+
+    private int textLength(int slot) {
+        return slots.getInt(slot + DESCRIPTION_LENGTH) + slots.getInt(slot + FROM_LENGTH)
+                + slots.getInt(slot + TO_LENGTH);
+    }
+
+    private void writeSlot(int slot, Task task, byte[][] parts) {
+        slots.put(slot + TYPE, typeOf(task));
+        slots.put(slot + DONE, (byte) (task.isDone() ? 1 : 0));
+        slots.putInt(slot + BY, byOf(task));
+        slots.putInt(slot + DESCRIPTION_LENGTH, parts[0].length);
+        slots.putInt(slot + FROM_LENGTH, parts[1].length);
+        slots.putInt(slot + TO_LENGTH, parts[2].length);
+        byte[] text = join(parts);
+        slots.putLong(slot + TEXT, appendText(text));
+        liveTextBytes += text.length;
+    }
+
+    private static byte typeOf(Task task) {
+        if (task instanceof Deadline) {
+            return DEADLINE;
+        } else if (task instanceof Event) {
+            return EVENT;
+        }
+        return TODO;
+    }
+
+    private static int byOf(Task task) {
+        return task instanceof Deadline ? (int) ((Deadline) task).getBy().toEpochDay() : 0;
+    }
+
+    /**
+     * Returns the UTF-8 bytes of a task's description and, for events, its start and end.
+     */
+    private static byte[][] encode(Task task) {
+        byte[] none = new byte[0];
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        if (task instanceof Event) {
+            Event event = (Event) task;
+            return new byte[][] {description, event.getFrom().getBytes(StandardCharsets.UTF_8),
+                event.getTo().getBytes(StandardCharsets.UTF_8)};
+        }
+        return new byte[][] {description, none, none};
+    }
+
+    private static byte[] join(byte[][] parts) {
+        byte[] joined = Arrays.copyOf(parts[0], parts[0].length + parts[1].length + parts[2].length);
+        System.arraycopy(parts[1], 0, joined, parts[0].length, parts[1].length);
+        System.arraycopy(parts[2], 0, joined, parts[0].length + parts[1].length, parts[2].length);
+        return joined;
+    }
+
+    /**
+     * Appends text to the arena, starting a new buffer when the last one is full.
+     *
+     * @return Where the text starts: the buffer number in the high 32 bits and the
+     *         position within it in the low 32 bits.
+     */
+    private long appendText(byte[] text) {
+        ByteBuffer chunk = arena.isEmpty() ? null : arena.get(arena.size() - 1);
+        if (chunk == null || chunk.remaining() < text.length) {
+            chunk = ByteBuffer.allocateDirect(Math.max(ARENA_CHUNK_BYTES, text.length));
+            arena.add(chunk);
+        }
+        long location = ((long) (arena.size() - 1) << 32) | chunk.position();
+        chunk.put(text);
+        return location;
+    }
+
+    private byte[] readText(long location, int length) {
+        ByteBuffer chunk = arena.get((int) (location >>> 32)).duplicate();
+        chunk.position((int) location);
+        byte[] text = new byte[length];
+        chunk.get(text);
+        return text;
+    }
+
+    /**
+     * Copies the live text into a fresh arena once more than half of the arena is
+     * text that no task uses any more.
+     */
+    private void compactIfWasteful() {
+        if (deadTextBytes <= liveTextBytes || deadTextBytes < ARENA_CHUNK_BYTES) {
+            return;
+        }
+        ArrayList<ByteBuffer> old = arena;
+        arena = new ArrayList<>();
+        for (int slot = 0; slot < size * SLOT_BYTES; slot += SLOT_BYTES) {
+            ByteBuffer chunk = old.get((int) (slots.getLong(slot + TEXT) >>> 32)).duplicate();
+            chunk.position((int) slots.getLong(slot + TEXT));
+            byte[] text = new byte[textLength(slot)];
+            chunk.get(text);
+            slots.putLong(slot + TEXT, appendText(text));
+        }
+        deadTextBytes = 0;
+    }
+
+    private void ensureCapacity(int slotCount) {
+        if (slotCount <= slots.capacity() / SLOT_BYTES) {
+            return;
+        }
+        if (slotCount > MAX_SLOTS) {
+            throw new IllegalStateException("An off-heap task list holds at most " + MAX_SLOTS + " tasks");
+        }
+        int capacity = (int) Math.min(MAX_SLOTS, Math.max(slotCount, 2L * slots.capacity() / SLOT_BYTES));
+        ByteBuffer grown = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+        ByteBuffer used = slots.duplicate();
+        used.position(0);
+        used.limit(size * SLOT_BYTES);
+        grown.put(used);
+        grown.clear();
+        slots = grown;
+    }
+
+    /**
+     * Moves <code>count</code> slots from position <code>from</code> to position
+     * <code>to</code>, through a small window so overlapping ranges are copied safely.
+     */
+    private void moveSlots(int from, int to, int count) {
+        int remaining = count * SLOT_BYTES;
+        byte[] window = new byte[Math.min(remaining, MOVE_WINDOW_BYTES)];
+        ByteBuffer source = slots.duplicate();
+        ByteBuffer target = slots.duplicate();
+        boolean isBackwards = to > from;
+        int sourceEnd = (from + count) * SLOT_BYTES;
+        int targetEnd = (to + count) * SLOT_BYTES;
+        int done = 0;
+        while (done < remaining) {
+            int length = Math.min(window.length, remaining - done);
+            int sourceStart = isBackwards ? sourceEnd - done - length : from * SLOT_BYTES + done;
+            int targetStart = isBackwards ? targetEnd - done - length : to * SLOT_BYTES + done;
+            source.position(sourceStart);
+            source.get(window, 0, length);
+            target.position(targetStart);
+            target.put(window, 0, length);
+            done += length;
+        }
+    }
+}
@@ -33,6 +33,17 @@ public class Deadline extends Task {
         return by;
     }
 
+    /**
+     * Returns whether another task is a deadline with the same description and due date.
+     *
+     * @param other The task to compare with.
+     * @return {@code true} if the details match, whatever the completion status.
+     */
+    @Override
+    public boolean hasSameDetails(Task other) {
+        return super.hasSameDetails(other) && ((Deadline) other).by.equals(by);
+    }
+
     /**
      * Returns a string representation of the deadline task.
      * <p>
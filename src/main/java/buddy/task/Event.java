@@ -42,6 +42,17 @@ public class Event extends Task {
         return this.to;
     }
 
+    /**
+     * Returns whether another task is an event with the same description, start and end.
+     *
+     * @param other The task to compare with.
+     * @return {@code true} if the details match, whatever the completion status.
+     */
+    @Override
+    public boolean hasSameDetails(Task other) {
+        return super.hasSameDetails(other) && ((Event) other).from.equals(from) && ((Event) other).to.equals(to);
+    }
+
     /**
      * Returns a string representation of the event task.
      * <p>
@@ -65,6 +65,17 @@ public class Task {
         this.isDone = false;
     }
 
+    /**
+     * Returns whether another task describes the same thing as this one, whatever
+     * the completion status of either.
+     *
+     * @param other The task to compare with.
+     * @return {@code true} if both tasks are of the same kind with the same details.
+     */
+    public boolean hasSameDetails(Task other) {
+        return other != null && other.getClass() == getClass() && other.description.equals(description);
+    }
+
     /**
      * Returns a string representation of the task, including its status icon and description.
      *
@@ -0,0 +1,138 @@
+package buddy.transfer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+
+import buddy.task.Deadline;
+import buddy.task.Event;
+import buddy.task.Task;
+
+/**
+ * Reads and writes tasks as comma-separated values.
+ * <p>
+ * Columns are <code>type,done,description,by,from,to</code>. Fields containing commas,
+ * quotes or line breaks are quoted as described in RFC 4180.
+ * </p>
+ */
+public class CsvCodec extends TaskCodec {
+    private static final String HEADER = "type,done,description,by,from,to";
+
+    @Override
+    public void writeHeader(Writer out) throws IOException {
+        out.write(HEADER);
+        out.write('\n');
+    }
+
+    @Override
+    public void write(Task task, Writer out) throws IOException {
+        String by = "";
+        String from = "";
+        String to = "";
+        if (task instanceof Deadline) {
+            by = ((Deadline) task).getBy().toString();
+        } else if (task instanceof Event) {
+            from = ((Event) task).getFrom();
+            to = ((Event) task).getTo();
+        }
+        out.write(typeOf(task));
+        out.write(task.isDone() ? ",1," : ",0,");
+        writeField(task.getDescription(), out);
+        out.write(',');
+        out.write(by);
+        out.write(',');
+        writeField(from, out);
+        out.write(',');
+        writeField(to, out);
+        out.write('\n');
+    }
+
+    @Override
+    public Task read(BufferedReader in) throws IOException {
+        ArrayList<String> fields = readRecord(in);
+        while (fields != null && isHeaderOrBlank(fields)) {
+            fields = readRecord(in);
+        }
+        if (fields == null) {
+            return null;
+        }
+        if (fields.size() < 3) {
+            throw new IllegalArgumentException("expected at least 3 columns");
+        }
+        return buildTask(fields.get(0).trim(), parseDone(fields.get(1)), fields.get(2),
+                field(fields, 3), field(fields, 4), field(fields, 5));
+    }
+
+    private static boolean isHeaderOrBlank(ArrayList<String> fields) {
+        return (fields.size() == 1 && fields.get(0).isEmpty()) || fields.get(0).equalsIgnoreCase("type");
+    }
+
+    private static String field(ArrayList<String> fields, int index) {
+        return index < fields.size() ? fields.get(index) : null;
+    }
+
+    private static void writeField(String value, Writer out) throws IOException {
+        boolean needsQuotes = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!needsQuotes) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    /**
+     * Reads one record, continuing onto following lines while inside a quoted field.
+     *
+     * @param in The source to read from.
+     * @return The fields of the record, or <code>null</code> at the end of the input.
+     * @throws IOException If reading fails.
+     */
+    private static ArrayList<String> readRecord(BufferedReader in) throws IOException {
+        String line = in.readLine();
+        if (line == null) {
+            return null;
+        }
+        ArrayList<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean isQuoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!isQuoted) {
+                    break;
+                }
+                line = in.readLine();
+                if (line == null) {
+                    throw new IllegalArgumentException("unterminated quoted field");
+                }
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (isQuoted) {
+                if (c == '"' && i < line.length() && line.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    isQuoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                isQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,192 @@
+package buddy.transfer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+
+import buddy.task.Deadline;
+import buddy.task.Event;
+import buddy.task.Task;
+
+/**
+ * Reads and writes tasks as JSON Lines, one flat JSON object per line.
+ * <p>
+ * Example: <code>{"type":"D","done":false,"description":"submit report","by":"2026-03-01"}</code>.
+ * Only string and boolean values are supported, which is all a task needs.
+ * </p>
+ */
+public class JsonLinesCodec extends TaskCodec {
+
+    @Override
+    public void write(Task task, Writer out) throws IOException {
+        out.write("{\"type\":\"");
+        out.write(typeOf(task));
+        out.write(task.isDone() ? "\",\"done\":true" : "\",\"done\":false");
+        writeMember("description", task.getDescription(), out);
+        if (task instanceof Deadline) {
+            writeMember("by", ((Deadline) task).getBy().toString(), out);
+        } else if (task instanceof Event) {
+            writeMember("from", ((Event) task).getFrom(), out);
+            writeMember("to", ((Event) task).getTo(), out);
+        }
+        out.write("}\n");
+    }
+
+    @Override
+    public Task read(BufferedReader in) throws IOException {
+        String line = in.readLine();
+        while (line != null && line.trim().isEmpty()) {
+            line = in.readLine();
+        }
+        if (line == null) {
+            return null;
+        }
+        HashMap<String, String> members = parseObject(line.trim());
+        return buildTask(members.get("type"), parseDone(members.get("done")), members.get("description"),
+                members.get("by"), members.get("from"), members.get("to"));
+    }
+
+    private static void writeMember(String name, String value, Writer out) throws IOException {
+        out.write(",\"");
+        out.write(name);
+        out.write("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                out.write("\\\"");
+                break;
+            case '\\':
+                out.write("\\\\");
+                break;
+            case '\n':
+                out.write("\\n");
+                break;
+            case '\r':
+                out.write("\\r");
+                break;
+            case '\t':
+                out.write("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    out.write(String.format("\\u%04x", (int) c));
+                } else {
+                    out.write(c);
+                }
+            }
+        }
+        out.write('"');
+    }
+
+    /**
+     * Parses a flat JSON object whose values are strings, booleans, numbers or null.
+     *
+     * @param json The object text.
+     * @return The members, with every value in its string form.
+     * @throws IllegalArgumentException If the text is not such an object.
+     */
+    private static HashMap<String, String> parseObject(String json) {
+        HashMap<String, String> members = new HashMap<>();
+        int[] pos = {skipSpaces(json, 0)};
+        expect(json, pos, '{');
+        if (peek(json, pos) == '}') {
+            return members;
+        }
+        while (true) {
+            String name = readString(json, pos);
+            expect(json, pos, ':');
+            String value = peek(json, pos) == '"' ? readString(json, pos) : readLiteral(json, pos);
+            members.put(name, value);
+            if (peek(json, pos) == ',') {
+                pos[0]++;
+                continue;
+            }
+            expect(json, pos, '}');
+            return members;
+        }
+    }
+
+    private static int skipSpaces(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static char peek(String json, int[] pos) {
+        pos[0] = skipSpaces(json, pos[0]);
+        if (pos[0] >= json.length()) {
+            throw new IllegalArgumentException("unexpected end of line");
+        }
+        return json.charAt(pos[0]);
+    }
+
+    private static void expect(String json, int[] pos, char c) {
+        if (peek(json, pos) != c) {
+            throw new IllegalArgumentException("expected '" + c + "' at column " + (pos[0] + 1));
+        }
+        pos[0]++;
+    }
+
+    private static String readLiteral(String json, int[] pos) {
+        int start = skipSpaces(json, pos[0]);
+        int end = start;
+        while (end < json.length() && ",}".indexOf(json.charAt(end)) < 0
+                && !Character.isWhitespace(json.charAt(end))) {
+            end++;
+        }
+        pos[0] = end;
+        String literal = json.substring(start, end);
+        return literal.equals("null") ? null : literal;
+    }
+
+    private static String readString(String json, int[] pos) {
+        expect(json, pos, '"');
+        StringBuilder sb = new StringBuilder();
+        int i = pos[0];
+        while (i < json.length()) {
+            char c = json.charAt(i++);
+            if (c == '"') {
+                pos[0] = i;
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (i >= json.length()) {
+                break;
+            }
+            char escaped = json.charAt(i++);
+            switch (escaped) {
+            case 'n':
+                sb.append('\n');
+                break;
+            case 'r':
+                sb.append('\r');
+                break;
+            case 't':
+                sb.append('\t');
+                break;
+            case 'b':
+                sb.append('\b');
+                break;
+            case 'f':
+                sb.append('\f');
+                break;
+            case 'u':
+                if (i + 4 > json.length()) {
+                    throw new IllegalArgumentException("bad unicode escape");
+                }
+                sb.append((char) Integer.parseInt(json.substring(i, i + 4), 16));
+                i += 4;
+                break;
+            default:
+                sb.append(escaped);
+            }
+        }
+        throw new IllegalArgumentException("unterminated string");
+    }
+}
@@ -0,0 +1,142 @@
+package buddy.transfer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+import buddy.task.Deadline;
+import buddy.task.Event;
+import buddy.task.Task;
+import buddy.task.Todo;
+
+/**
+ * Converts tasks to and from one record of an export file format.
+ * <p>
+ * Codecs work on one record at a time so whole files never have to be held in memory.
+ * </p>
+ */
+public abstract class TaskCodec {
+    private static final String FIELD_SEPARATOR = " | ";
+
+    /**
+     * Writes anything that must appear before the first record, such as a header row.
+     *
+     * @param out The destination to write to.
+     * @throws IOException If writing fails.
+     */
+    public void writeHeader(Writer out) throws IOException {
+    }
+
+    /**
+     * Writes a single task as one record.
+     *
+     * @param task The task to write.
+     * @param out The destination to write to.
+     * @throws IOException If writing fails.
+     */
+    public abstract void write(Task task, Writer out) throws IOException;
+
+    /**
+     * Reads the next record from the input.
+     *
+     * @param in The source to read from.
+     * @return The next task, or <code>null</code> at the end of the input.
+     * @throws IOException If reading fails.
+     * @throws IllegalArgumentException If the record is malformed.
+     */
+    public abstract Task read(BufferedReader in) throws IOException;
+
+    /**
+     * Returns the short name used for each kind of task, e.g. "D" for a deadline.
+     *
+     * @param task The task to name.
+     * @return The one-letter type code.
+     */
+    protected static String typeOf(Task task) {
+        if (task instanceof Deadline) {
+            return "D";
+        } else if (task instanceof Event) {
+            return "E";
+        }
+        return "T";
+    }
+
+    /**
+     * Builds a task from the fields of a record.
+     *
+     * @param type The one-letter type code.
+     * @param isDone Whether the task is completed.
+     * @param description The task description.
+     * @param by The due date of a deadline, otherwise ignored.
+     * @param from The start of an event, otherwise ignored.
+     * @param to The end of an event, otherwise ignored.
+     * @return The new task.
+     * @throws IllegalArgumentException If a required field is missing or invalid, or holds
+     *         text that cannot be saved to the data file.
+     */
+    protected static Task buildTask(String type, boolean isDone, String description, String by,
+            String from, String to) {
+        if (description == null || description.isEmpty()) {
+            throw new IllegalArgumentException("missing description");
+        }
+        requireSavable(description);
+        requireSavable(from);
+        requireSavable(to);
+        Task task;
+        switch (type == null ? "" : type) {
+        case "T":
+            task = new Todo(description);
+            break;
+        case "D":
+            try {
+                task = new Deadline(description, LocalDate.parse(by == null ? "" : by.trim()));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("bad deadline date " + by);
+            }
+            break;
+        case "E":
+            if (from == null || to == null) {
+                throw new IllegalArgumentException("event without from/to");
+            }
+            task = new Event(description, from, to);
+            break;
+        default:
+            throw new IllegalArgumentException("unknown task type " + type);
+        }
+        if (isDone) {
+            task.markAsDone();
+        }
+        return task;
+    }
+
+    /**
+     * Checks that a field can be written to the data file as it is.
+     * <p>
+     * The data file keeps one task per line with fields separated by <code>" | "</code>,
+     * so a line break or separator inside a field would split the task when it is loaded.
+     * A bar at either end of a field counts too, since it forms a separator with the space
+     * written next to it.
+     * </p>
+     *
+     * @param value The field value, or <code>null</code> if absent.
+     * @throws IllegalArgumentException If the value holds a line break or the separator.
+     */
+    private static void requireSavable(String value) {
+        if (value != null && (value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0
+                || (" " + value + " ").contains(FIELD_SEPARATOR))) {
+            throw new IllegalArgumentException("field holds a line break or separator: " + value);
+        }
+    }
+
+    /**
+     * Interprets a done flag written as 1/0 or true/false.
+     *
+     * @param value The field value.
+     * @return Whether the flag is set.
+     */
+    protected static boolean parseDone(String value) {
+        return value != null && (value.trim().equals("1") || value.trim().equalsIgnoreCase("true"));
+    }
+}
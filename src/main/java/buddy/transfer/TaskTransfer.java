@@ -0,0 +1,146 @@
+package buddy.transfer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import buddy.BuddyException;
+import buddy.TaskList;
+import buddy.task.Task;
+
+/**
+ * Streams tasks to and from CSV and JSON Lines files.
+ * <p>
+ * Exports write one task at a time through a buffered writer. Imports read through
+ * a fixed-size buffer and hand tasks to the {@link TaskList} in batches, so neither
+ * direction ever holds the whole file in memory.
+ * </p>
+ */
+public class TaskTransfer {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int BATCH_SIZE = 4096;
+
+    /**
+     * The outcome of an import.
+     */
+    public static class ImportSummary {
+        private final int imported;
+        private final int skipped;
+
+        private ImportSummary(int imported, int skipped) {
+            this.imported = imported;
+            this.skipped = skipped;
+        }
+
+        /**
+         * Returns the number of tasks added to the list.
+         *
+         * @return The imported task count.
+         */
+        public int getImported() {
+            return imported;
+        }
+
+        /**
+         * Returns the number of records that were malformed and left out.
+         *
+         * @return The skipped record count.
+         */
+        public int getSkipped() {
+            return skipped;
+        }
+    }
+
+    /**
+     * Picks the file format from the file name extension.
+     *
+     * @param file The file to read or write.
+     * @return The matching codec.
+     * @throws BuddyException If the extension is neither <code>.csv</code> nor <code>.jsonl</code>.
+     */
+    public static TaskCodec codecFor(Path file) throws BuddyException {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".csv")) {
+            return new CsvCodec();
+        } else if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return new JsonLinesCodec();
+        }
+        throw new BuddyException("I only know .csv and .jsonl files, woof!");
+    }
+
+    /**
+     * Writes all tasks to a file, in the format given by its extension.
+     *
+     * @param tasks The tasks to export.
+     * @param file The file to create or overwrite.
+     * @return The number of tasks written.
+     * @throws BuddyException If the format is unknown or the file cannot be written.
+     */
+    public static int exportTasks(List<Task> tasks, Path file) throws BuddyException {
+        TaskCodec codec = codecFor(file);
+        try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(file), StandardCharsets.UTF_8.newEncoder()), BUFFER_SIZE)) {
+            codec.writeHeader(out);
+            for (Task task : tasks) {
+                codec.write(task, out);
+            }
+        } catch (IOException e) {
+            throw new BuddyException("Whimper... I couldn't write to " + file + "!");
+        }
+        return tasks.size();
+    }
+
+    /**
+     * Appends the tasks in a file to the list, in the format given by its extension.
+     * <p>
+     * Malformed records are skipped and counted rather than aborting the import.
+     * If the file cannot be read to the end, the list is left as it was.
+     * </p>
+     *
+     * @param file The file to read.
+     * @param tasks The list to add the tasks to.
+     * @return How many tasks were imported and skipped.
+     * @throws BuddyException If the format is unknown or the file cannot be read.
+     */
+    public static ImportSummary importTasks(Path file, TaskList tasks) throws BuddyException {
+        TaskCodec codec = codecFor(file);
+        ArrayList<Task> batch = new ArrayList<>(BATCH_SIZE);
+        int originalSize = tasks.size();
+        int imported = 0;
+        int skipped = 0;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                Files.newInputStream(file), StandardCharsets.UTF_8.newDecoder()), BUFFER_SIZE)) {
+            while (true) {
+                Task task;
+                try {
+                    task = codec.read(in);
+                } catch (IllegalArgumentException e) {
+                    skipped++;
+                    continue;
+                }
+                if (task == null) {
+                    break;
+                }
+                batch.add(task);
+                if (batch.size() == BATCH_SIZE) {
+                    tasks.addAll(batch);
+                    imported += batch.size();
+                    batch.clear();
+                }
+            }
+            tasks.addAll(batch);
+            imported += batch.size();
+        } catch (IOException e) {
+            tasks.truncate(originalSize);
+            throw new BuddyException("Whimper... I couldn't read " + file + "!");
+        }
+        return new ImportSummary(imported, skipped);
+    }
+}
@@ -0,0 +1,111 @@
+package buddy.workspace;
+
+import buddy.BuddyException;
+import buddy.Storage;
+import buddy.TaskList;
+import buddy.TaskListener;
+import buddy.history.History;
+import buddy.task.Task;
+
+/**
+ * Represents one named task list together with its save file and undo history.
+ * <p>
+ * A workspace notices every change to its list, so it knows whether the list
+ * still has to be written before it can be dropped from memory.
+ * </p>
+ */
+public class Workspace implements TaskListener {
+    private final String name;
+    private final Storage storage;
+    private final TaskList tasks;
+    private final History history;
+    private boolean isDirty;
+
+    /**
+     * Constructs a workspace around a task list that has already been loaded.
+     *
+     * @param name The workspace name.
+     * @param storage The storage that persists the list.
+     * @param tasks The loaded task list.
+     * @param history The undo history for the list.
+     */
+    public Workspace(String name, Storage storage, TaskList tasks, History history) {
+        this.name = name;
+        this.storage = storage;
+        this.tasks = tasks;
+        this.history = history;
+        tasks.addListener(this);
+    }
+
+    /**
+     * Returns the name of this workspace.
+     *
+     * @return The workspace name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the storage that persists this workspace's list.
+     *
+     * @return The storage.
+     */
+    public Storage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Returns this workspace's task list.
+     *
+     * @return The task list.
+     */
+    public TaskList getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Returns this workspace's undo history.
+     *
+     * @return The history.
+     */
+    public History getHistory() {
+        return history;
+    }
+
+    /**
+     * Records that the list has just been written to its save file.
+     */
+    public void markSaved() {
+        isDirty = false;
+    }
+
+    /**
+     * Writes the list to its save file if it changed since it was last saved,
+     * and releases the history log.
+     *
+     * @throws BuddyException If the list cannot be saved.
+     */
+    public void close() throws BuddyException {
+        if (isDirty) {
+            storage.saveTasks(tasks.getAllTasks());
+            isDirty = false;
+        }
+        history.close();
+    }
+
+    @Override
+    public void taskAdded(int index, Task task) {
+        isDirty = true;
+    }
+
+    @Override
+    public void taskRemoved(int index, Task task) {
+        isDirty = true;
+    }
+
+    @Override
+    public void taskStatusChanged(int index, Task task) {
+        isDirty = true;
+    }
+}
@@ -0,0 +1,116 @@
+package buddy.workspace;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Consumer;
+
+import buddy.BuddyException;
+
+/**
+ * Keeps the most recently used workspaces in memory, up to a fixed number.
+ * <p>
+ * When a new workspace would push the cache over its capacity, the least recently
+ * used one is closed, which saves it if needed, and dropped. Lists that have not
+ * been used for a while therefore cost no memory.
+ * </p>
+ */
+public class WorkspaceCache {
+    private final int capacity;
+    private final LinkedHashMap<String, Workspace> loaded = new LinkedHashMap<>(16, 0.75f, true);
+    private final Consumer<Workspace> onEvict;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param capacity The maximum number of workspaces to keep loaded, at least 1.
+     * @param onEvict Called with each workspace just before it is closed and dropped.
+     */
+    public WorkspaceCache(int capacity, Consumer<Workspace> onEvict) {
+        this.capacity = Math.max(1, capacity);
+        this.onEvict = onEvict;
+    }
+
+    /**
+     * Returns a loaded workspace and marks it as the most recently used.
+     *
+     * @param name The workspace name.
+     * @return The workspace, or <code>null</code> if it is not loaded.
+     */
+    public Workspace get(String name) {
+        return loaded.get(name);
+    }
+
+    /**
+     * Returns a loaded workspace without counting it as used.
+     *
+     * @param name The workspace name.
+     * @return The workspace, or <code>null</code> if it is not loaded.
+     */
+    public Workspace peek(String name) {
+        for (Workspace workspace : loaded.values()) {
+            if (workspace.getName().equals(name)) {
+                return workspace;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a newly loaded workspace, evicting the least recently used ones if the cache is full.
+     *
+     * @param workspace The workspace to add.
+     * @throws BuddyException If an evicted workspace cannot be saved. It is dropped regardless.
+     */
+    public void put(Workspace workspace) throws BuddyException {
+        loaded.put(workspace.getName(), workspace);
+        BuddyException failure = null;
+        Iterator<Workspace> eldest = loaded.values().iterator();
+        while (loaded.size() > capacity) {
+            Workspace evicted = eldest.next();
+            eldest.remove();
+            try {
+                close(evicted);
+            } catch (BuddyException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Returns the workspaces currently in memory, least recently used first.
+     *
+     * @return A snapshot of the loaded workspaces.
+     */
+    public ArrayList<Workspace> getLoaded() {
+        return new ArrayList<>(loaded.values());
+    }
+
+    /**
+     * Closes and drops every loaded workspace.
+     *
+     * @throws BuddyException If any workspace cannot be saved. The others are still closed.
+     */
+    public void closeAll() throws BuddyException {
+        BuddyException failure = null;
+        for (Workspace workspace : getLoaded()) {
+            try {
+                close(workspace);
+            } catch (BuddyException e) {
+                failure = e;
+            }
+        }
+        loaded.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void close(Workspace workspace) throws BuddyException {
+        onEvict.accept(workspace);
+        workspace.close();
+    }
+}
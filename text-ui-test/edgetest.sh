@@ -0,0 +1,162 @@
+#!/usr/bin/env bash
+# Edge-case tests. Each case runs the real buddy.Buddy entry point in a scratch folder
+# with some launch options and input, then checks the exit status and what was left in
+# the folder. Prints one line per case and fails if any case fails.
+#
+# Usage: ./edgetest.sh
+
+cd "$(dirname "$0")"
+BIN_DIR="$(pwd)/../bin/edge"
+
+# compile the code into the bin folder, terminates if error occurred
+rm -rf "$BIN_DIR"
+mkdir -p "$BIN_DIR"
+if ! javac -Xlint:none -d "$BIN_DIR" $(find ../src/main/java -name '*.java')
+then
+    echo "********** BUILD FAILURE **********"
+    exit 1
+fi
+
+WORK_DIR="$(mktemp -d)"
+FAILED=0
+
+# runs Buddy in a fresh folder: run_buddy NAME INPUT [OPTIONS...]
+# the folder is left in $RUN_DIR and Buddy's output in $RUN_DIR/output.txt
+run_buddy() {
+    RUN_DIR="$WORK_DIR/$1"
+    local input="$2"
+    shift 2
+    mkdir -p "$RUN_DIR"
+    (cd "$RUN_DIR" && printf '%b' "$input" \
+            | java -Dfile.encoding=UTF-8 -cp "$BIN_DIR" buddy.Buddy --no-reminders "$@" > output.txt 2>&1)
+}
+
+# records the result of a case: check NAME CONDITION-STATUS
+check() {
+    if [ "$2" -eq 0 ]
+    then
+        echo "ok    $1"
+    else
+        echo "FAIL  $1"
+        FAILED=1
+    fi
+}
+
+# --metrics-interval below one second is raised to one second instead of crashing
+for interval in 0 -5
+do
+    run_buddy "metrics-interval$interval" 'todo walk the dog\nbye\n' \
+            --metrics-file=metrics.txt --metrics-interval=$interval
+    status=$?
+    grep -q '^buddy_commands_total' "$RUN_DIR/metrics.txt" 2>/dev/null
+    check "--metrics-interval=$interval starts and writes metrics" $(( status | $? ))
+done
+
+# failed and unrecognised commands are counted too
+run_buddy failed-commands 'todo walk the dog\nmark 9\nfetch the ball\nlist\nbye\n' --metrics-file=metrics.txt
+grep -q '^buddy_commands_total{command="mark"} 1$' "$RUN_DIR/metrics.txt" \
+        && grep -q '^buddy_command_errors_total{command="mark"} 1$' "$RUN_DIR/metrics.txt" \
+        && grep -q '^buddy_command_errors_total{command="unknown"} 1$' "$RUN_DIR/metrics.txt" \
+        && grep -q '^buddy_phase_count{phase="command"} 4$' "$RUN_DIR/metrics.txt"
+check "failed commands are counted in the metrics" $?
+
+# undo refuses to remove a task that is not the one the history recorded adding
+run_buddy stale-history 'todo write report\nbye\n' --history-file=history.txt
+run_buddy stale-history 'delete 1\ntodo buy milk\nbye\n'
+run_buddy stale-history 'undo\nbye\n' --history-file=history.txt
+grep -q 'buy milk' "$RUN_DIR/data/buddy.txt"
+check "undo leaves an unrelated task alone" $?
+
+# a stale edit is forgotten, so the next undo goes on to the edit before it, also after a restart
+run_buddy stale-edit-dropped 'todo write report\ntodo walk the dog\nbye\n' --history-file=history.txt
+run_buddy stale-edit-dropped 'delete 2\ntodo buy milk\nbye\n'
+run_buddy stale-edit-dropped 'undo\nbye\n' --history-file=history.txt
+grep -q "forgotten that change" "$RUN_DIR/output.txt"
+status=$?
+run_buddy stale-edit-dropped 'undo\nbye\n' --history-file=history.txt
+[ "$(cat "$RUN_DIR/data/buddy.txt")" = "T | 0 | buy milk" ]
+check "a stale edit is dropped instead of blocking older undos" $(( status | $? ))
+
+# equally close fuzzy matches are ranked by list position, with and without an index,
+# also for a task that undo put back after the index was built
+for mode in heap off-heap
+do
+    options=()
+    [ "$mode" = off-heap ] && options=(--off-heap)
+    run_buddy "fuzzy-ties-$mode" \
+            'todo walk the dog\ntodo walk the cat\nfind --fuzzy wlk\ndelete 1\nundo\nfind --fuzzy wlk\nbye\n' \
+            "${options[@]}"
+    grep -A1 'closest first:' "$RUN_DIR/output.txt" | tail -1 | grep -q '1\. \[T\]\[ \] walk the dog'
+    check "fuzzy ties keep list order ($mode)" $?
+done
+
+# the default list gets its persistent history back after being unloaded and reloaded,
+# so an undo made after switching back is still written to the history file
+run_buddy reloaded-history 'todo write report\ntodo buy milk\nuse work\nuse buddy\nundo\nbye\n' \
+        --history-file=history.txt --workspace-cache=1
+! grep -q 'buy milk' "$RUN_DIR/data/buddy.txt"
+status=$?
+run_buddy reloaded-history 'redo\nbye\n' --history-file=history.txt
+grep -q 'buy milk' "$RUN_DIR/data/buddy.txt"
+check "history file is reopened when the default list is reloaded" $(( status | $? ))
+
+# a follower stuck on a record it cannot apply yet reports a lag that keeps growing
+RUN_DIR="$WORK_DIR/follower-lag"
+mkdir -p "$RUN_DIR"
+now=$(date +%s%3N)
+printf '%s\n' "1|$now|SNAPSHOT|buddy" "2|$now|ADD|0|T | 0 | walk the dog" > "$RUN_DIR/replica.log"
+printf '%s' "3|$now|ADD|1|T | 0 | buy mi" >> "$RUN_DIR/replica.log"
+(cd "$RUN_DIR" && { sleep 1; echo stats; sleep 2; echo stats; echo bye; } \
+        | java -cp "$BIN_DIR" buddy.Buddy --no-reminders --follow=replica.log > output.txt 2>&1)
+lags=($(awk '/replication_lag_millis/ { print $2 }' "$RUN_DIR/output.txt"))
+[ "${#lags[@]}" -eq 2 ] && [ $(( lags[1] - lags[0] )) -ge 1500 ]
+check "follower lag grows while it is behind" $?
+
+# imported fields holding a line break or the save file separator are skipped, so the
+# save file still loads with every other task intact
+run_buddy unsafe-import-jsonl 'bye\n'
+cat > "$RUN_DIR/tasks.jsonl" <<'END'
+{"type":"T","done":false,"description":"line\nbreak"}
+{"type":"T","done":false,"description":"carriage\rreturn"}
+{"type":"T","done":false,"description":"pipe | inside"}
+{"type":"T","done":false,"description":"| leading pipe"}
+{"type":"E","done":false,"description":"party","from":"Mon | 2pm","to":"4pm"}
+{"type":"E","done":false,"description":"party","from":"Mon 2pm","to":"4pm\nlate"}
+{"type":"T","done":false,"description":"walk the dog"}
+END
+run_buddy unsafe-import-jsonl 'import tasks.jsonl\nbye\n'
+grep -q 'skip 6 lines' "$RUN_DIR/output.txt"
+status=$?
+run_buddy unsafe-import-jsonl 'list\nbye\n'
+grep -q '1\. \[T\]\[ \] walk the dog' "$RUN_DIR/output.txt" && [ "$(wc -l < "$RUN_DIR/data/buddy.txt")" -eq 1 ]
+check "import skips JSON Lines fields with line breaks or separators" $(( status | $? ))
+
+run_buddy unsafe-import-csv 'bye\n'
+printf '%s\n' 'type,done,description,by,from,to' 'T,0,"line' 'break",,,' \
+        "T,0,\"carriage$(printf '\r')return\",,," 'T,0,pipe | inside,,,' 'T,0,trailing pipe |,,,' \
+        'E,0,party,,Mon 2pm,4pm | late' 'T,0,walk the dog,,,' > "$RUN_DIR/tasks.csv"
+run_buddy unsafe-import-csv 'import tasks.csv\nbye\n'
+grep -q 'skip 5 lines' "$RUN_DIR/output.txt"
+status=$?
+run_buddy unsafe-import-csv 'list\nbye\n'
+grep -q '1\. \[T\]\[ \] walk the dog' "$RUN_DIR/output.txt" && [ "$(wc -l < "$RUN_DIR/data/buddy.txt")" -eq 1 ]
+check "import skips CSV fields with line breaks or separators" $(( status | $? ))
+
+# tasks with a corrupted deadline date are skipped while loading and reported once, after
+# the greeting, with the other tasks still loaded
+RUN_DIR="$WORK_DIR/corrupted-date"
+mkdir -p "$RUN_DIR/data"
+printf '%s\n' 'D | 0 | submit report | not-a-date' 'T | 0 | walk the dog' > "$RUN_DIR/data/buddy.txt"
+run_buddy corrupted-date 'list\nbye\n'
+[ "$(grep -c 'skip 1 tasks with a corrupted deadline date' "$RUN_DIR/output.txt")" -eq 1 ] \
+        && ! grep -q 'Skipping a corrupted' "$RUN_DIR/output.txt" \
+        && grep -q '1\. \[T\]\[ \] walk the dog' "$RUN_DIR/output.txt"
+check "corrupted deadline dates are skipped and reported through the UI" $?
+
+rm -rf "$WORK_DIR"
+if [ "$FAILED" -ne 0 ]
+then
+    echo "Edge-case tests: FAILED"
+    exit 1
+fi
+echo "Edge-case tests: PASSED"
@@ -0,0 +1,154 @@
+#!/usr/bin/env bash
+# Performance regression gate. Runs fixed, seeded workloads through the real buddy.Buddy
+# entry point and compares heap allocation (summed over all threads), bytes written to
+# data/ and the number of saves with perf-baseline.txt. Fails if any of them is worse than
+# its baseline by more than the tolerance. Each scenario is run PERF_RUNS times and the
+# best run is kept, to damp noise.
+#
+# Usage: ./perftest.sh            compare with the baseline
+#        ./perftest.sh --update   record the current numbers as the new baseline
+#
+# Tolerances, in percent, can be overridden with ALLOC_TOLERANCE, DATA_TOLERANCE and
+# SAVES_TOLERANCE. These numbers depend only on the code and the JDK, so the baseline
+# can be recorded on any machine with the same major JDK version.
+#
+# Wall time is reported too, but only gated when WALL_TOLERANCE is set, since it depends
+# on the machine. To gate on it in CI, record the baseline on the CI runner itself, e.g.
+# with a one-off job that runs ./perftest.sh --update and commits perf-baseline.txt, and
+# set WALL_TOLERANCE in the gating job.
+
+cd "$(dirname "$0")"
+BIN_DIR="$(pwd)/../bin/perf"
+BASELINE="$(pwd)/perf-baseline.txt"
+PERF_RUNS=${PERF_RUNS:-3}
+WALL_TOLERANCE=${WALL_TOLERANCE:-}
+ALLOC_TOLERANCE=${ALLOC_TOLERANCE:-10}
+DATA_TOLERANCE=${DATA_TOLERANCE:-1}
+SAVES_TOLERANCE=${SAVES_TOLERANCE:-0}
+
+# name and workload generator options of each scenario
+SCENARIOS=(
+    "add-heavy --commands=5000 --target-size=5000 --mix=todo:60,deadline:25,event:15"
+    "mixed --commands=10000 --target-size=1000"
+    "search-heavy --commands=10000 --target-size=3000 --mix=todo:15,deadline:5,find:80"
+)
+
+# compile the code into the bin folder, terminates if error occurred
+rm -rf "$BIN_DIR"
+mkdir -p "$BIN_DIR"
+if ! javac -Xlint:none -d "$BIN_DIR" $(find ../src/main/java -name '*.java')
+then
+    echo "********** BUILD FAILURE **********"
+    exit 1
+fi
+
+# prints the value of one sample from a metrics file
+metric() {
+    awk -v name="$2" '$1 == name { print $2 }' "$1"
+}
+
+# stops the gate when a scenario could not be measured: fail MESSAGE
+fail() {
+    echo "$1"
+    rm -rf "$WORK_DIR"
+    echo "Perf result: FAILED"
+    exit 1
+}
+
+WORK_DIR="$(mktemp -d)"
+RESULTS="$WORK_DIR/results.txt"
+: > "$RESULTS"
+
+for scenario in "${SCENARIOS[@]}"
+do
+    read -r name options <<< "$scenario"
+    java -cp "$BIN_DIR" buddy.bench.WorkloadGenerator --seed=7 --start-date=2030-01-01 \
+            --out="$WORK_DIR/$name.txt" $options \
+            || fail "$name: the workload generator failed"
+    echo "bye" >> "$WORK_DIR/$name.txt"
+
+    best_wall=""; best_alloc=""; data=""; saves=""
+    for run in $(seq "$PERF_RUNS")
+    do
+        RUN_DIR="$WORK_DIR/$name-$run"
+        mkdir -p "$RUN_DIR"
+        start=$(date +%s%N)
+        (cd "$RUN_DIR" && java -cp "$BIN_DIR" buddy.Buddy --no-reminders --metrics-file=metrics.txt \
+                < "$WORK_DIR/$name.txt" > /dev/null) \
+                || fail "$name: Buddy exited with status $? on run $run"
+        wall=$(( ($(date +%s%N) - start) / 1000000 ))
+        [ -f "$RUN_DIR/metrics.txt" ] || fail "$name: Buddy wrote no metrics file on run $run"
+        alloc=$(metric "$RUN_DIR/metrics.txt" buddy_allocated_bytes)
+        data=$(metric "$RUN_DIR/metrics.txt" buddy_bytes_written_total)
+        saves=$(metric "$RUN_DIR/metrics.txt" buddy_saves_total)
+        for value in "$alloc" "$data" "$saves"
+        do
+            [[ "$value" =~ ^[0-9]+$ ]] || fail "$name: the metrics file of run $run is missing a number"
+        done
+        if [ -z "$best_wall" ] || [ "$wall" -lt "$best_wall" ]; then best_wall=$wall; fi
+        if [ -z "$best_alloc" ] || [ "$alloc" -lt "$best_alloc" ]; then best_alloc=$alloc; fi
+        rm -rf "$RUN_DIR"
+    done
+    echo "$name wall_millis $best_wall" >> "$RESULTS"
+    echo "$name allocated_bytes $best_alloc" >> "$RESULTS"
+    echo "$name data_bytes $data" >> "$RESULTS"
+    echo "$name saves $saves" >> "$RESULTS"
+done
+
+if [ "$1" == "--update" ]
+then
+    { echo "# scenario metric value (recorded $(date +%F) with $(java -version 2>&1 | head -1))"
+      cat "$RESULTS"; } > "$BASELINE"
+    rm -rf "$WORK_DIR"
+    echo "Baseline updated:"
+    cat "$BASELINE"
+    exit 0
+fi
+
+if [ ! -f "$BASELINE" ]
+then
+    rm -rf "$WORK_DIR"
+    echo "No baseline found, run ./perftest.sh --update first"
+    exit 1
+fi
+
+# compare each result with its baseline, allowing the tolerance for its kind of metric;
+# wall time is only reported unless WALL_TOLERANCE is set
+awk -v wall="$WALL_TOLERANCE" -v alloc="$ALLOC_TOLERANCE" -v data="$DATA_TOLERANCE" \
+        -v saves="$SAVES_TOLERANCE" '
+    FNR == NR { if ($1 !~ /^#/) baseline[$1 " " $2] = $3; next }
+    {
+        key = $1 " " $2
+        if ($2 == "wall_millis") tolerance = wall
+        else if ($2 == "allocated_bytes") tolerance = alloc
+        else if ($2 == "saves") tolerance = saves
+        else tolerance = data
+        if (!(key in baseline)) {
+            printf "%-14s %-16s %14.0f  (no baseline)\n", $1, $2, $3
+            next
+        }
+        change = baseline[key] == 0 ? 0 : ($3 - baseline[key]) * 100 / baseline[key]
+        if (tolerance == "") {
+            printf "%-14s %-16s %14.0f  baseline %14.0f  %+7.1f%%  (not gated)\n", \
+                    $1, $2, $3, baseline[key], change
+            next
+        }
+        limit = baseline[key] * (1 + tolerance / 100)
+        verdict = $3 > limit ? "REGRESSED" : "ok"
+        if ($3 > limit) failed = 1
+        printf "%-14s %-16s %14.0f  baseline %14.0f  %+7.1f%%  (limit +%d%%)  %s\n", \
+                $1, $2, $3, baseline[key], change, tolerance, verdict
+    }
+    END { exit failed }
+' "$BASELINE" "$RESULTS"
+STATUS=$?
+rm -rf "$WORK_DIR"
+
+if [ $STATUS -eq 0 ]
+then
+    echo "Perf result: PASSED"
+    exit 0
+else
+    echo "Perf result: FAILED"
+    exit 1
+fi